@@ -0,0 +1,202 @@
+package xyz.geik.gmanager.api.handlers;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.event.HandlerList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the key/value accessors of {@link GManagerEvent}, resolved once per class
+ * into method handles, with the reflective ones they replaced.
+ * <br/>
+ * {@code introspect*} looks the bean properties up on every call like the old code,
+ * {@code reflect*} keeps the looked up methods and only calls them reflectively.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GManagerEventBenchmark {
+
+    /**
+     * Event with a few properties of common types
+     */
+    public static class SampleEvent extends GManagerEvent {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        private String name = "sample";
+        private int amount = 42;
+        private double value = 1.5D;
+        private boolean cancelled;
+        private UUID player = UUID.randomUUID();
+        private Object data = new Object();
+
+        @Override
+        public HandlerList getHandlers() {
+            return getHandlerList();
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+
+        public void setAmount(int amount) {
+            this.amount = amount;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public void setValue(double value) {
+            this.value = value;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void setCancelled(boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        public UUID getPlayer() {
+            return player;
+        }
+
+        public void setPlayer(UUID player) {
+            this.player = player;
+        }
+
+        public Object getData() {
+            return data;
+        }
+
+        public void setData(Object data) {
+            this.data = data;
+        }
+    }
+
+    private SampleEvent event;
+    private Map<String, Object> keyValues;
+    private List<PropertyDescriptor> readable;
+    private List<PropertyDescriptor> writable;
+
+    @Setup(Level.Trial)
+    public void setup() throws IntrospectionException {
+        event = new SampleEvent();
+        keyValues = event.getKeyValues();
+        readable = new ArrayList<>();
+        writable = new ArrayList<>();
+        for (PropertyDescriptor pd : Introspector.getBeanInfo(SampleEvent.class, GManagerEvent.class)
+                .getPropertyDescriptors()) {
+            if (pd.getReadMethod() != null)
+                readable.add(pd);
+            if (pd.getWriteMethod() != null)
+                writable.add(pd);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> getKeyValues() {
+        return event.getKeyValues();
+    }
+
+    @Benchmark
+    public SampleEvent setKeyValues() {
+        event.setKeyValues(keyValues);
+        return event;
+    }
+
+    @Benchmark
+    public Map<String, Object> introspectGetKeyValues() throws IntrospectionException {
+        return get(Introspector.getBeanInfo(event.getClass(), GManagerEvent.class).getPropertyDescriptors());
+    }
+
+    @Benchmark
+    public SampleEvent introspectSetKeyValues() throws IntrospectionException {
+        set(Introspector.getBeanInfo(event.getClass(), GManagerEvent.class).getPropertyDescriptors());
+        return event;
+    }
+
+    @Benchmark
+    public Map<String, Object> reflectGetKeyValues() {
+        Map<String, Object> map = new HashMap<>();
+        for (PropertyDescriptor pd : readable)
+            put(map, pd.getName(), pd.getReadMethod());
+        return map;
+    }
+
+    @Benchmark
+    public SampleEvent reflectSetKeyValues() {
+        for (PropertyDescriptor pd : writable)
+            invoke(pd.getWriteMethod(), keyValues.get(pd.getName()));
+        return event;
+    }
+
+    private Map<String, Object> get(PropertyDescriptor[] properties) {
+        Map<String, Object> map = new HashMap<>();
+        for (PropertyDescriptor pd : properties)
+            if (pd.getReadMethod() != null)
+                put(map, pd.getName(), pd.getReadMethod());
+        return map;
+    }
+
+    private void set(PropertyDescriptor[] properties) {
+        for (PropertyDescriptor pd : properties)
+            if (pd.getWriteMethod() != null && keyValues.containsKey(pd.getName()))
+                invoke(pd.getWriteMethod(), keyValues.get(pd.getName()));
+    }
+
+    private void put(Map<String, Object> map, String name, Method getter) {
+        try {
+            Object value = getter.invoke(event);
+            if (value != null)
+                map.put(name, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void invoke(Method setter, Object value) {
+        try {
+            setter.invoke(event, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -7,19 +7,22 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.java.JavaPlugin;
 import xyz.geik.glib.GLib;
-import xyz.geik.glib.chat.ChatUtils;
-import xyz.geik.glib.shades.okaeri.configs.ConfigManager;
-import xyz.geik.glib.shades.okaeri.configs.yaml.bukkit.YamlBukkitConfigurer;
 import xyz.geik.glib.shades.triumphteam.cmd.bukkit.BukkitCommandManager;
 import xyz.geik.glib.shades.triumphteam.cmd.bukkit.message.BukkitMessageKey;
 import xyz.geik.glib.shades.triumphteam.cmd.core.message.MessageKey;
 import xyz.geik.glib.simplixstorage.SimplixStorageAPI;
+import xyz.geik.gmanager.api.config.ConfigHandle;
+import xyz.geik.gmanager.api.config.ConfigService;
+import xyz.geik.gmanager.api.lang.LocaleManager;
+import xyz.geik.gmanager.api.lang.MessageTemplates;
 import xyz.geik.gmanager.api.managers.CommandManager;
 import xyz.geik.gmanager.api.managers.ModuleManager;
+import xyz.geik.gmanager.commands.GManagerCommand;
 import xyz.geik.gmanager.configuration.ConfigFile;
 import xyz.geik.gmanager.configuration.LangFile;
 
 import java.io.File;
+import java.util.function.Function;
 
 /**
  * Main class of Gmanager
@@ -36,14 +39,31 @@ public class GManager extends JavaPlugin {
     private SimplixStorageAPI simplixStorageAPI;
 
     @Getter
-    private static LangFile langFile;
+    private static volatile LangFile langFile;
 
     @Getter
-    private static ConfigFile configFile;
+    private static volatile ConfigFile configFile;
 
     @Getter
     private static ModuleManager moduleManager;
 
+    /**
+     * Parsed config and lang files of GManager and the addons
+     */
+    @Getter
+    private static ConfigService configService;
+
+    /**
+     * Languages of the players
+     */
+    @Getter
+    private static LocaleManager localeManager;
+
+    /**
+     * Lang files of GManager by locale
+     */
+    private static LocaleManager.Lang<LangFile> lang;
+
     /**
      * CommandManager
      */
@@ -53,6 +73,8 @@ public class GManager extends JavaPlugin {
     public void onLoad() {
         instance = this;
         simplixStorageAPI = new SimplixStorageAPI(this);
+        configService = new ConfigService();
+        localeManager = new LocaleManager();
         setupFiles();
     }
 
@@ -62,26 +84,34 @@ public class GManager extends JavaPlugin {
         moduleManager = new ModuleManager(this);
         moduleManager.loadAddons();
         moduleManager.enableAddons();
+        if (getConfigFile().getSettings().isWatchAddons())
+            moduleManager.startAddonWatcher();
+        if (getConfigFile().getSettings().isWatchConfigs())
+            moduleManager.startConfigWatcher();
     }
 
     public void onDisable() {
         //CommandManager.unregisterCommands();
+        moduleManager.stopAddonWatcher();
+        moduleManager.stopConfigWatcher();
         moduleManager.disableAddons();
+        moduleManager.getRequestExecutor().shutdown();
     }
 
 
     private void setupCommands() {
         commandManager = BukkitCommandManager.create(this);
         commandManager.registerMessage(MessageKey.INVALID_ARGUMENT, (sender, invalidArgumentContext) ->
-                ChatUtils.sendMessage(sender, getLangFile().getMessages().getInvalidArgument()));
+                sendMessage(sender, LangFile.Messages::getInvalidArgument));
         commandManager.registerMessage(MessageKey.UNKNOWN_COMMAND, (sender, invalidArgumentContext) ->
-                ChatUtils.sendMessage(sender, getLangFile().getMessages().getUnknownCommand()));
+                sendMessage(sender, LangFile.Messages::getUnknownCommand));
         commandManager.registerMessage(MessageKey.NOT_ENOUGH_ARGUMENTS, (sender, invalidArgumentContext) ->
-                ChatUtils.sendMessage(sender, getLangFile().getMessages().getNotEnoughArguments()));
+                sendMessage(sender, LangFile.Messages::getNotEnoughArguments));
         commandManager.registerMessage(MessageKey.TOO_MANY_ARGUMENTS, (sender, invalidArgumentContext) ->
-                ChatUtils.sendMessage(sender, getLangFile().getMessages().getTooManyArguments()));
+                sendMessage(sender, LangFile.Messages::getTooManyArguments));
         commandManager.registerMessage(BukkitMessageKey.NO_PERMISSION, (sender, invalidArgumentContext) ->
-                ChatUtils.sendMessage(sender, getLangFile().getMessages().getNoPerm()));
+                sendMessage(sender, LangFile.Messages::getNoPerm));
+        commandManager.registerCommand(new GManagerCommand());
     }
 
     /**
@@ -89,27 +119,35 @@ public class GManager extends JavaPlugin {
      */
     public void setupFiles() {
         try {
-            configFile = ConfigManager.create(ConfigFile.class, (it) -> {
-                it.withConfigurer(new YamlBukkitConfigurer());
-                it.withBindFile(new File(getDataFolder(), "config.yml"));
-                it.saveDefaults();
-                it.load(true);
-            });
-            String langName = configFile.getSettings().getLang();
-            Class langClass = Class.forName("xyz.geik.gmanager.configuration.lang." + langName);
-            Class<LangFile> languageClass = langClass;
-            langFile = ConfigManager.create(languageClass, (it) -> {
-                it.withConfigurer(new YamlBukkitConfigurer());
-                it.withBindFile(new File(getDataFolder() + "/lang", langName + ".yml"));
-                it.saveDefaults();
-                it.load(true);
-            });
+            ConfigHandle<ConfigFile> configHandle = configService.okaeri(ConfigFile.class,
+                    new File(getDataFolder(), "config.yml"));
+            configFile = configHandle.get();
+            configHandle.onReload(config -> configFile = config);
+            lang = localeManager.register("xyz.geik.gmanager.configuration.lang.", LangFile.class, LangFile.class,
+                    new File(getDataFolder(), "lang"));
+            ConfigHandle<LangFile> langHandle = lang.getHandle(localeManager.getDefaultLocale());
+            langFile = langHandle.get();
+            localeManager.pin(langHandle);
+            langHandle.onReload(reloaded -> langFile = reloaded);
         } catch (Exception exception) {
             getPluginLoader().disablePlugin(this);
             throw new RuntimeException("Error loading configuration file");
         }
     }
 
+    /**
+     * Sends a message of the lang file in the language of the sender
+     *
+     * @param sender receiver
+     * @param message getter of the message, such as {@code LangFile.Messages::getNoPerm}
+     * @param placeholders placeholder names followed by their values
+     */
+    public static void sendMessage(@NonNull CommandSender sender, @NonNull Function<LangFile.Messages, String> message,
+                                   @NonNull Object... placeholders) {
+        LangFile.Messages messages = lang.get(sender).getMessages();
+        MessageTemplates.of(messages).send(sender, () -> message.apply(messages), placeholders);
+    }
+
     public void log(String string) {
         getLogger().info(() -> string);
     }
@@ -0,0 +1,215 @@
+package xyz.geik.gmanager.api.config;
+
+import lombok.Getter;
+import lombok.NonNull;
+import xyz.geik.glib.shades.okaeri.configs.OkaeriConfig;
+import xyz.geik.gmanager.GManager;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Parsed config file kept by the {@link ConfigService}.
+ * <br/>
+ * A reload parses the file into a new instance and swaps it in, the instance
+ * handed out before is only modified by an explicit {@link #reloadInto(Object, Executor, Executor)}.
+ * Read the config through {@link #get()} to always see the latest one.
+ *
+ * @param <T> type of the parsed config
+ */
+public class ConfigHandle<T> {
+
+    /**
+     * Parses a config file
+     * @param <T> type of the parsed config
+     */
+    @FunctionalInterface
+    public interface Parser<T> {
+        T parse(@NonNull File file) throws Exception;
+    }
+
+    /**
+     * Parsed file
+     */
+    @Getter
+    private final File file;
+    /**
+     * Class the file is parsed into
+     */
+    @Getter
+    private final Class<?> type;
+    private final Parser<T> parser;
+    private final AtomicReference<T> value = new AtomicReference<>();
+    private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Every config the handle held, holders of an older one may still reload it
+     */
+    private final Set<Object> held = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private volatile long lastModified;
+    private volatile long length;
+
+    ConfigHandle(@NonNull File file, @NonNull Class<?> type, @NonNull Parser<T> parser) throws Exception {
+        this.file = file;
+        this.type = type;
+        this.parser = parser;
+        T parsed = parser.parse(file);
+        value.set(parsed);
+        held.add(parsed);
+        stamp();
+    }
+
+    /**
+     * @return latest parsed config
+     */
+    @NonNull
+    public T get() {
+        return value.get();
+    }
+
+    /**
+     * Calls the listener with the new config every time the file is parsed again
+     * @param listener listener
+     */
+    public void onReload(@NonNull Consumer<T> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return true if the file was modified since it was parsed
+     */
+    public boolean isChanged() {
+        return file.lastModified() != lastModified || file.length() != length;
+    }
+
+    /**
+     * Parses the file again and swaps the new config in. The current config is
+     * kept if the file can't be parsed.
+     *
+     * @return true if the new config was swapped in
+     */
+    public synchronized boolean reload() {
+        T parsed;
+        try {
+            parsed = parser.parse(file);
+        } catch (Exception e) {
+            GManager.getInstance().logWarning("Could not reload " + file.getPath() + ", keeping the loaded one: "
+                    + e.getMessage());
+            return false;
+        }
+        swap(parsed);
+        return true;
+    }
+
+    /**
+     * Parses the file again on the parse executor and applies it on the apply executor,
+     * so the file is never read on the main thread. The fields of the parsed config are
+     * copied into the given Okaeri config in one step under the lock of the handle, so its
+     * holders keep a working reference and never see a partly loaded config on the apply
+     * thread. If the handle moved on to a newer instance meanwhile, the parsed one is
+     * swapped in as well. Other configs are swapped like {@link #reload()}.
+     *
+     * @param target instance held by the caller, this handle holds or held it
+     * @param parseExecutor executor reading the file
+     * @param applyExecutor executor applying the parsed config, the main thread
+     * @return future of the updated instance, completed exceptionally if the file can't be parsed
+     */
+    @NonNull
+    public CompletableFuture<T> reloadInto(@NonNull T target, @NonNull Executor parseExecutor,
+                                           @NonNull Executor applyExecutor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return parser.parse(file);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, parseExecutor).thenApplyAsync(parsed -> apply(target, parsed), applyExecutor);
+    }
+
+    /**
+     * @param config parsed config
+     * @return true if the config is the current one or was handed out by this handle before
+     */
+    public boolean holds(@NonNull Object config) {
+        return value.get() == config || held.contains(config);
+    }
+
+    private synchronized T apply(T target, T parsed) {
+        if (!(target instanceof OkaeriConfig) || target.getClass() != parsed.getClass()) {
+            // Only Okaeri configs are plain fields, or the class is of a reloaded addon
+            swap(parsed);
+            return parsed;
+        }
+        copyFields(parsed, target);
+        if (value.get() == target) {
+            stamp();
+            notifyListeners(target);
+        } else {
+            swap(parsed);
+        }
+        return target;
+    }
+
+    private void swap(T parsed) {
+        value.set(parsed);
+        held.add(parsed);
+        stamp();
+        notifyListeners(parsed);
+    }
+
+    /**
+     * Copies the instance fields declared below {@link OkaeriConfig}, its own state such as
+     * the bound file stays with the instance
+     */
+    private static void copyFields(Object from, Object to) {
+        for (Class<?> type = from.getClass(); type != null && type != OkaeriConfig.class && type != Object.class;
+             type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()))
+                    continue;
+                try {
+                    field.setAccessible(true);
+                    field.set(to, field.get(from));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    GManager.getInstance().logWarning("Could not copy " + field.getName() + " of the reloaded "
+                            + to.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the file again only if it was modified
+     * @return true if a new config was swapped in
+     */
+    public synchronized boolean reloadIfChanged() {
+        return isChanged() && reload();
+    }
+
+    private void notifyListeners(T config) {
+        for (Consumer<T> listener : listeners) {
+            try {
+                listener.accept(config);
+            } catch (Exception e) {
+                GManager.getInstance().logError("Error occurred when applying the reloaded " + file.getPath());
+                GManager.getInstance().logStacktrace(e);
+            }
+        }
+    }
+
+    private void stamp() {
+        // Saving the defaults may have written the file while parsing it
+        lastModified = file.lastModified();
+        length = file.length();
+    }
+}
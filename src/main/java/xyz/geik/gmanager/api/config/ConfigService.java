@@ -0,0 +1,142 @@
+package xyz.geik.gmanager.api.config;
+
+import lombok.NonNull;
+import org.bukkit.configuration.file.YamlConfiguration;
+import xyz.geik.glib.shades.okaeri.configs.ConfigManager;
+import xyz.geik.glib.shades.okaeri.configs.OkaeriConfig;
+import xyz.geik.glib.shades.okaeri.configs.yaml.bukkit.YamlBukkitConfigurer;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses the config and lang files of GManager and its addons.
+ * <br/>
+ * Every file is parsed once and kept until it is modified on disk, asking
+ * for an unchanged file again returns the parsed one. The parsed configs are
+ * the mutable config objects themselves, not read-only copies, so they must
+ * not be modified by their readers.
+ * {@link #reloadChanged()} parses again only the files which were modified.
+ */
+public class ConfigService {
+
+    /**
+     * Handles by absolute file
+     */
+    private final Map<File, ConfigHandle<?>> handles = new ConcurrentHashMap<>();
+
+    /**
+     * Gets an Okaeri config, its defaults are saved to the file first
+     *
+     * @param type config class
+     * @param file bound file
+     * @return handle of the config
+     */
+    @NonNull
+    public <T extends OkaeriConfig> ConfigHandle<T> okaeri(@NonNull Class<T> type, @NonNull File file) {
+        return handle(file, type, bound -> ConfigManager.create(type, (it) -> {
+            it.withConfigurer(new YamlBukkitConfigurer());
+            it.withBindFile(bound);
+            it.saveDefaults();
+            it.load(true);
+        }));
+    }
+
+    /**
+     * Gets a plain yaml file, a missing file is parsed as an empty one
+     *
+     * @param file yaml file
+     * @return handle of the yaml
+     */
+    @NonNull
+    public ConfigHandle<YamlConfiguration> yaml(@NonNull File file) {
+        return handle(file, YamlConfiguration.class, bound -> {
+            YamlConfiguration yaml = new YamlConfiguration();
+            if (bound.exists())
+                yaml.load(bound);
+            return yaml;
+        });
+    }
+
+    /**
+     * Parses again the files which were modified since they were parsed
+     * @return handles which got a new config
+     */
+    @NonNull
+    public List<ConfigHandle<?>> reloadChanged() {
+        List<ConfigHandle<?>> reloaded = new ArrayList<>();
+        for (ConfigHandle<?> handle : handles.values())
+            if (handle.reloadIfChanged())
+                reloaded.add(handle);
+        return reloaded;
+    }
+
+    /**
+     * @param file config file
+     * @return handle of the file or null if it wasn't parsed yet
+     */
+    @Nullable
+    public ConfigHandle<?> getHandle(@NonNull File file) {
+        return handles.get(file.getAbsoluteFile());
+    }
+
+    /**
+     * @param config parsed config
+     * @return handle holding the config now or before or null if the service didn't parse it
+     */
+    @Nullable
+    public ConfigHandle<?> getHandleOf(@NonNull Object config) {
+        return handles.values().stream().filter(handle -> handle.holds(config)).findFirst().orElse(null);
+    }
+
+    /**
+     * Forgets the files in the folder, called when the addon owning it is unloaded
+     * so its config classes and reload listeners are not kept.
+     *
+     * @param folder folder
+     */
+    public void forget(@NonNull File folder) {
+        String path = folder.getAbsolutePath() + File.separator;
+        handles.keySet().removeIf(file -> file.getPath().startsWith(path));
+    }
+
+    /**
+     * Forgets a file, it is parsed again the next time it is asked for
+     *
+     * @param file config file
+     */
+    public void forgetFile(@NonNull File file) {
+        handles.remove(file.getAbsoluteFile());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ConfigHandle<T> handle(File file, Class<?> type, ConfigHandle.Parser<T> parser) {
+        File key = file.getAbsoluteFile();
+        // Files are parsed and listeners run outside the map, they may call back into the service
+        while (true) {
+            ConfigHandle<?> existing = handles.get(key);
+            // A reloaded addon brings its own config classes
+            if (existing != null && existing.getType() == type) {
+                existing.reloadIfChanged();
+                return (ConfigHandle<T>) existing;
+            }
+            ConfigHandle<T> created;
+            try {
+                created = new ConfigHandle<>(key, type, parser);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not load " + key.getPath() + ": " + e.getMessage(), e);
+            }
+            boolean published = existing == null ? handles.putIfAbsent(key, created) == null
+                    : handles.replace(key, existing, created);
+            if (published)
+                return created;
+            // Another thread published a handle meanwhile, use it
+        }
+    }
+}
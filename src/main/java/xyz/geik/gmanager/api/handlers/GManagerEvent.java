@@ -2,17 +2,23 @@ package xyz.geik.gmanager.api.handlers;
 
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
-import java.util.Collections;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 
 import org.bukkit.event.Event;
 import org.bukkit.event.HandlerList;
 import xyz.geik.gmanager.GManager;
 
+import javax.annotation.Nullable;
+
 /**
  * Provides the default methods expected when extending {@link Event}.
  * @author tastybento
@@ -23,6 +29,19 @@ public abstract class GManagerEvent extends Event {
 
     private static final HandlerList handlers = new HandlerList();
 
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, GManagerEvent.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, GManagerEvent.class, Object.class);
+
+    /**
+     * Accessors by event class, resolved on first use
+     */
+    private static final ClassValue<Accessors> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Accessors computeValue(Class<?> type) {
+            return Accessors.of(type);
+        }
+    };
+
     /**
      * This is here just for backwards compatibility. Users of GManagerEvent should implement their own getHandlers
      */
@@ -33,6 +52,7 @@ public abstract class GManagerEvent extends Event {
 
     /**
      * This is here just for backwards compatibility. Users of GManagerEvent should implement their own getHandlers
+     * and a static getHandlerList, otherwise every such subclass shares this handler list and its listeners.
      *
      * @return HandlerList
      */
@@ -60,55 +80,105 @@ public abstract class GManagerEvent extends Event {
 
     /**
      * Get a map of key value pairs derived from the fields of this class by reflection.
+     * The getters are resolved once per event class.
      *
      * @return map
      * @since 1.5.3
      */
     public Map<String, Object> getKeyValues() {
-        try {
-            Map<String, Object> map = new HashMap<>();
-            Arrays.stream(Introspector.getBeanInfo(this.getClass(), GManagerEvent.class).getPropertyDescriptors())
-                    // only get getters
-                    .filter(pd -> Objects.nonNull(pd.getReadMethod()))
-                    .forEach(pd -> { // invoke method to get value
-                        try {
-                            Object value = pd.getReadMethod().invoke(this);
-                            if (value != null) {
-                                map.put(pd.getName(), value);
-                            }
-                        } catch (Exception ignore) {
-                            // Ignored.
-                        }
-                    });
-            return map;
-        } catch (IntrospectionException e) {
-            // Oh well, nothing
-            return Collections.emptyMap();
+        Property[] properties = ACCESSORS.get(getClass()).getters();
+        Map<String, Object> map = new HashMap<>(Math.max(16, properties.length * 2));
+        for (Property property : properties) {
+            try {
+                Object value = (Object) property.handle().invokeExact(this);
+                if (value != null) {
+                    map.put(property.name(), value);
+                }
+            } catch (Throwable ignore) {
+                // Ignored.
+            }
         }
+        return map;
     }
 
     /**
-     * Set values back to the event. Use {@link #getKeyValues()} to obtain the map
+     * Set values back to the event. Use {@link #getKeyValues()} to obtain the map.
+     * The setters are resolved once per event class.
      *
      * @param map - key value map (Name of key, value - object)
      * @since 1.15.1
      */
     public void setKeyValues(Map<String, Object> map) {
-        try {
-            Arrays.stream(Introspector.getBeanInfo(this.getClass(), GManagerEvent.class).getPropertyDescriptors())
-                    // only get setters
-                    .filter(pd -> Objects.nonNull(pd.getWriteMethod()))
-                    .forEach(pd -> { // invoke method to set value
-                        if (map.containsKey(pd.getName())) {
-                            try {
-                                pd.getWriteMethod().invoke(this, map.get(pd.getName()));
-                            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-                                GManager.getInstance().logStacktrace(e);
-                            }
-                        }
-                    });
-        } catch (IntrospectionException ignore) {
-            // Ignored.
+        for (Property property : ACCESSORS.get(getClass()).setters()) {
+            if (map.containsKey(property.name())) {
+                try {
+                    property.handle().invokeExact(this, map.get(property.name()));
+                } catch (Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    GManager.getInstance().logStacktrace(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bean property of an event class with its accessor.
+     * Getters are adapted to {@code (GManagerEvent)Object}, setters to {@code (GManagerEvent,Object)void}.
+     *
+     * @param name property name
+     * @param handle accessor
+     */
+    private record Property(String name, MethodHandle handle) {
+    }
+
+    /**
+     * Accessors of an event class
+     *
+     * @param getters readable properties
+     * @param setters writable properties
+     */
+    private record Accessors(Property[] getters, Property[] setters) {
+
+        private static final Accessors EMPTY = new Accessors(new Property[0], new Property[0]);
+
+        private static Accessors of(Class<?> type) {
+            PropertyDescriptor[] descriptors;
+            try {
+                descriptors = Introspector.getBeanInfo(type, GManagerEvent.class).getPropertyDescriptors();
+            } catch (IntrospectionException e) {
+                // Oh well, nothing
+                return EMPTY;
+            }
+            List<Property> getters = new ArrayList<>();
+            List<Property> setters = new ArrayList<>();
+            for (PropertyDescriptor pd : descriptors) {
+                MethodHandle getter = unreflect(pd.getReadMethod(), GETTER_TYPE);
+                if (getter != null) {
+                    getters.add(new Property(pd.getName(), getter));
+                }
+                MethodHandle setter = unreflect(pd.getWriteMethod(), SETTER_TYPE);
+                if (setter != null) {
+                    setters.add(new Property(pd.getName(), setter));
+                }
+            }
+            return new Accessors(getters.toArray(new Property[0]), setters.toArray(new Property[0]));
+        }
+
+        @Nullable
+        private static MethodHandle unreflect(@Nullable Method method, MethodType type) {
+            if (method == null) {
+                return null;
+            }
+            try {
+                if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                    method.setAccessible(true);
+                }
+                return MethodHandles.lookup().unreflect(method).asType(type);
+            } catch (Exception ignore) {
+                // Not accessible, the property is skipped
+                return null;
+            }
         }
     }
 }
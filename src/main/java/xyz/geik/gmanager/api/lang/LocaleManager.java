@@ -0,0 +1,304 @@
+package xyz.geik.gmanager.api.lang;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import xyz.geik.glib.shades.okaeri.configs.OkaeriConfig;
+import xyz.geik.gmanager.GManager;
+import xyz.geik.gmanager.api.config.ConfigHandle;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Picks the lang of GManager and the addons per player.
+ * <br/>
+ * A lang is a family of classes named after their locale, such as
+ * {@code xyz.geik.gmanager.configuration.lang.en}. The lang of a locale is loaded
+ * the first time a player with that locale needs it, and the least recently used
+ * ones of all langs are dropped once more than the configured amount are loaded.
+ * The default lang and the pinned ones are never dropped. Locales without a lang
+ * class use the default lang, a locale is resolved to its class only once.
+ */
+public class LocaleManager {
+
+    /**
+     * Locales which may name a lang class and file
+     */
+    private static final Pattern LOCALE = Pattern.compile("[a-z]{2,3}(_[a-z0-9]{2,8})?");
+    /**
+     * Resolved locales kept per lang, clients may send any locale
+     */
+    private static final int MAX_RESOLVED = 256;
+
+    /**
+     * Lang of GManager or of an addon
+     *
+     * @param <T> lang class
+     */
+    public final class Lang<T extends OkaeriConfig> {
+
+        /**
+         * Package and class name prefix of the lang classes
+         */
+        @Getter
+        private final String classPrefix;
+        /**
+         * Class every lang class extends
+         */
+        private final Class<T> baseClass;
+        private final Class<? extends T> defaultClass;
+        /**
+         * Folder of the lang files
+         */
+        @Getter
+        private final File folder;
+        /**
+         * Lang classes by the locale they are named after
+         */
+        private final Map<String, Class<? extends T>> classes = new ConcurrentHashMap<>();
+        /**
+         * Requested locales mapped to the locale of their lang class
+         */
+        private final Map<String, String> targets = new ConcurrentHashMap<>();
+        /**
+         * Default locale the targets were resolved with
+         */
+        private volatile String targetsDefault;
+
+        private Lang(String classPrefix, Class<T> baseClass, Class<? extends T> defaultClass, File folder) {
+            this.classPrefix = classPrefix;
+            this.baseClass = baseClass;
+            this.defaultClass = defaultClass;
+            this.folder = folder;
+        }
+
+        /**
+         * @param sender receiver of the messages
+         * @return lang of the sender
+         */
+        @NonNull
+        public T get(@NonNull CommandSender sender) {
+            return get(getLocale(sender));
+        }
+
+        /**
+         * @param locale locale such as {@code en} or {@code tr_tr}
+         * @return lang of the locale, the default lang if there is none
+         */
+        @NonNull
+        public T get(@NonNull String locale) {
+            return getHandle(locale).get();
+        }
+
+        /**
+         * @param locale locale such as {@code en} or {@code tr_tr}
+         * @return handle of the lang file of the locale, the default one if there is none
+         */
+        @NonNull
+        public ConfigHandle<T> getHandle(@NonNull String locale) {
+            String resolved = resolve(locale.toLowerCase(Locale.ENGLISH));
+            return load(this, resolved, classes.get(resolved));
+        }
+
+        private String resolve(String locale) {
+            String defaultLocale = getDefaultLocale();
+            if (!defaultLocale.equals(targetsDefault)) {
+                targets.clear();
+                targetsDefault = defaultLocale;
+            }
+            String target = targets.get(locale);
+            if (target != null)
+                return target;
+            target = lookup(locale, defaultLocale);
+            if (targets.size() >= MAX_RESOLVED)
+                targets.clear();
+            targets.put(locale, target);
+            return target;
+        }
+
+        /**
+         * Finds the locale with a lang class, {@code tr_tr} falls back to {@code tr}
+         * and then to the default locale
+         */
+        private String lookup(String locale, String defaultLocale) {
+            if (LOCALE.matcher(locale).matches()) {
+                if (define(locale))
+                    return locale;
+                int separator = locale.indexOf('_');
+                if (separator > 0 && define(locale.substring(0, separator)))
+                    return locale.substring(0, separator);
+            }
+            if (!define(defaultLocale))
+                classes.put(defaultLocale, defaultClass);
+            return defaultLocale;
+        }
+
+        private boolean define(String locale) {
+            if (classes.containsKey(locale))
+                return true;
+            try {
+                Class<?> type = Class.forName(classPrefix + locale, true, defaultClass.getClassLoader());
+                if (!baseClass.isAssignableFrom(type))
+                    return false;
+                classes.put(locale, type.asSubclass(baseClass));
+                return true;
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Loaded lang of a locale
+     */
+    private record Key(Lang<?> lang, String locale) {
+    }
+
+    private final List<Lang<?>> langs = new ArrayList<>();
+    /**
+     * Loaded langs in access order, guarded by itself
+     */
+    private final LinkedHashMap<Key, ConfigHandle<?>> loaded = new LinkedHashMap<>(16, 0.75F, true);
+    /**
+     * Handles which are never dropped, guarded by {@link #loaded}
+     */
+    private final Set<ConfigHandle<?>> pinned = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * Handles the templates are compiled again for on reload, guarded by {@link #loaded}
+     */
+    private final Set<ConfigHandle<?>> precompiled = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * Registers a lang
+     *
+     * @param classPrefix package and class name prefix of the lang classes, such as {@code my.addon.lang.}
+     * @param baseClass class every lang class extends
+     * @param defaultClass lang used if the default locale has no class, its loader loads the lang classes
+     * @param folder folder of the lang files
+     * @return lang
+     */
+    @NonNull
+    public <T extends OkaeriConfig> Lang<T> register(@NonNull String classPrefix, @NonNull Class<T> baseClass,
+                                                      @NonNull Class<? extends T> defaultClass, @NonNull File folder) {
+        synchronized (langs) {
+            for (Lang<?> lang : langs) {
+                if (lang.classPrefix.equals(classPrefix) && lang.defaultClass == defaultClass
+                        && lang.folder.equals(folder)) {
+                    @SuppressWarnings("unchecked")
+                    Lang<T> existing = (Lang<T>) lang;
+                    return existing;
+                }
+            }
+            Lang<T> lang = new Lang<>(classPrefix, baseClass, defaultClass, folder);
+            langs.add(lang);
+            return lang;
+        }
+    }
+
+    /**
+     * Drops the langs with files in the folder, called when the addon owning it is unloaded
+     *
+     * @param folder folder
+     */
+    public void forget(@NonNull File folder) {
+        String path = folder.getAbsolutePath() + File.separator;
+        List<Lang<?>> removed = new ArrayList<>();
+        synchronized (langs) {
+            langs.removeIf(lang -> {
+                boolean inside = (lang.folder.getAbsolutePath() + File.separator).startsWith(path);
+                if (inside)
+                    removed.add(lang);
+                return inside;
+            });
+        }
+        synchronized (loaded) {
+            loaded.keySet().removeIf(key -> removed.contains(key.lang()));
+            pinned.removeIf(handle -> handle.getFile().getAbsolutePath().startsWith(path));
+        }
+    }
+
+    /**
+     * Keeps a lang file loaded, for holders which listen to its reloads. The default
+     * lang may change with the config, the handle of the old one is kept as well.
+     *
+     * @param handle handle of a lang file
+     */
+    public void pin(@NonNull ConfigHandle<?> handle) {
+        synchronized (loaded) {
+            pinned.add(handle);
+        }
+    }
+
+    /**
+     * @param sender receiver of messages
+     * @return locale of a player, the default locale for the others or if per player langs are disabled
+     */
+    @NonNull
+    public String getLocale(@NonNull CommandSender sender) {
+        if (sender instanceof Player player && GManager.getConfigFile().getSettings().isPlayerLocale())
+            return player.getLocale();
+        return getDefaultLocale();
+    }
+
+    /**
+     * @return locale of the config
+     */
+    @NonNull
+    public String getDefaultLocale() {
+        return GManager.getConfigFile().getSettings().getLang().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return amount of loaded langs
+     */
+    public int getLoadedCount() {
+        synchronized (loaded) {
+            return loaded.size();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends OkaeriConfig> ConfigHandle<T> load(Lang<T> lang, String locale, Class<? extends T> type) {
+        Key key = new Key(lang, locale);
+        ConfigHandle<? extends T> handle;
+        synchronized (loaded) {
+            handle = (ConfigHandle<? extends T>) loaded.get(key);
+        }
+        // A reloaded addon brings its own lang classes
+        if (handle == null || handle.getType() != type) {
+            handle = GManager.getConfigService().okaeri(type, new File(lang.folder, locale + ".yml"));
+            synchronized (loaded) {
+                // The service hands out the same handle again if it still has it
+                if (precompiled.add(handle)) {
+                    MessageTemplates.precompile(handle.get());
+                    handle.onReload(MessageTemplates::precompile);
+                }
+                loaded.put(key, handle);
+                evict();
+            }
+        }
+        return (ConfigHandle<T>) handle;
+    }
+
+    /**
+     * Drops the least recently used langs, the default and pinned ones stay
+     */
+    private void evict() {
+        int limit = Math.max(1, GManager.getConfigFile().getSettings().getLangCacheSize());
+        String defaultLocale = getDefaultLocale();
+        Iterator<Map.Entry<Key, ConfigHandle<?>>> iterator = loaded.entrySet().iterator();
+        int size = loaded.size();
+        while (size > limit && iterator.hasNext()) {
+            Map.Entry<Key, ConfigHandle<?>> eldest = iterator.next();
+            if (eldest.getKey().locale().equals(defaultLocale) || pinned.contains(eldest.getValue()))
+                continue;
+            iterator.remove();
+            GManager.getConfigService().forgetFile(eldest.getValue().getFile());
+            size--;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package xyz.geik.gmanager.api.lang;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lang message compiled once.
+ * <br/>
+ * Colour codes are translated and constant placeholders such as {@code {prefix}}
+ * are filled in when the template is compiled, the other placeholders are split
+ * into slots. Rendering appends the parts to a reused builder in a single pass.
+ * Values are inserted as they are, their colour codes are not translated.
+ */
+public class MessageTemplate {
+
+    /**
+     * Initial capacity of the render builders, they are kept at most this large
+     */
+    private static final int BUILDER_CAPACITY = 256;
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(
+            () -> new StringBuilder(BUILDER_CAPACITY));
+
+    /**
+     * Message as written in the lang file
+     */
+    @Getter
+    private final String raw;
+    /**
+     * Literal parts, {@code literals[i]} comes before {@code slots[i]} and the last one after every slot
+     */
+    private final String[] literals;
+    private final String[] slots;
+    private final int length;
+
+    private MessageTemplate(String raw, String[] literals, String[] slots) {
+        this.raw = raw;
+        this.literals = literals;
+        this.slots = slots;
+        int total = 0;
+        for (String literal : literals)
+            total += literal.length();
+        this.length = total;
+    }
+
+    /**
+     * Compiles a message
+     *
+     * @param raw message, null is compiled as an empty message
+     * @param constants placeholders filled in now, their values are translated too
+     * @return template
+     */
+    @NonNull
+    public static MessageTemplate compile(@Nullable String raw, @NonNull Map<String, String> constants) {
+        if (raw == null)
+            raw = "";
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(raw.length());
+        int i = 0;
+        while (i < raw.length()) {
+            int open = raw.indexOf('{', i);
+            int close = open < 0 ? -1 : raw.indexOf('}', open + 1);
+            if (close < 0) {
+                literal.append(raw, i, raw.length());
+                break;
+            }
+            literal.append(raw, i, open);
+            String name = raw.substring(open + 1, close);
+            String constant = constants.get(name);
+            if (constant != null) {
+                literal.append(constant);
+            } else if (isPlaceholder(name)) {
+                literals.add(colour(literal.toString()));
+                slots.add(name);
+                literal.setLength(0);
+            } else {
+                // Not a placeholder, such as a json snippet
+                literal.append(raw, open, close + 1);
+            }
+            i = close + 1;
+        }
+        literals.add(colour(literal.toString()));
+        return new MessageTemplate(raw, literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    /**
+     * Compiles a message without constants
+     *
+     * @param raw message
+     * @return template
+     */
+    @NonNull
+    public static MessageTemplate compile(@Nullable String raw) {
+        return compile(raw, Map.of());
+    }
+
+    /**
+     * Renders the message
+     *
+     * @param placeholders placeholder names followed by their values, such as {@code "addon", name}
+     * @return message, placeholders without a value are kept as they are
+     */
+    @NonNull
+    public String render(@NonNull Object... placeholders) {
+        if (slots.length == 0)
+            return literals[0];
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        builder.ensureCapacity(length + 16 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            Object value = find(slots[i], placeholders);
+            if (value != null)
+                builder.append(value);
+            else
+                builder.append('{').append(slots[i]).append('}');
+        }
+        builder.append(literals[slots.length]);
+        String result = builder.toString();
+        if (builder.capacity() > BUILDER_CAPACITY * 16)
+            BUILDER.remove();
+        return result;
+    }
+
+    /**
+     * Renders the message and sends it
+     *
+     * @param sender receiver
+     * @param placeholders placeholder names followed by their values
+     */
+    public void send(@NonNull CommandSender sender, @NonNull Object... placeholders) {
+        String message = render(placeholders);
+        if (!message.isEmpty())
+            sender.sendMessage(message);
+    }
+
+    /**
+     * @return names of the placeholders left to fill in
+     */
+    @NonNull
+    public List<String> getPlaceholders() {
+        return List.of(slots);
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+
+    @Nullable
+    private static Object find(String name, Object[] placeholders) {
+        for (int i = 0; i + 1 < placeholders.length; i += 2)
+            if (name.equals(placeholders[i]))
+                return placeholders[i + 1];
+        return null;
+    }
+
+    private static boolean isPlaceholder(String name) {
+        if (name.isEmpty())
+            return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Translates {@code &} colour codes and {@code &#rrggbb} hex colours
+     *
+     * @param text text
+     * @return coloured text
+     */
+    @NonNull
+    public static String colour(@NonNull String text) {
+        if (text.indexOf('&') < 0)
+            return text;
+        StringBuilder builder = new StringBuilder(text.length() + 16);
+        int i = 0;
+        while (i < text.length()) {
+            int hex = text.indexOf("&#", i);
+            if (hex < 0 || hex + 8 > text.length() || !isHex(text, hex + 2)) {
+                int end = hex < 0 || hex + 8 > text.length() ? text.length() : hex + 2;
+                builder.append(text, i, end);
+                i = end;
+                continue;
+            }
+            builder.append(text, i, hex).append(ChatColor.COLOR_CHAR).append('x');
+            for (int c = hex + 2; c < hex + 8; c++)
+                builder.append(ChatColor.COLOR_CHAR).append(Character.toLowerCase(text.charAt(c)));
+            i = hex + 8;
+        }
+        return ChatColor.translateAlternateColorCodes('&', builder.toString());
+    }
+
+    private static boolean isHex(String text, int start) {
+        for (int i = start; i < start + 6; i++)
+            if (Character.digit(text.charAt(i), 16) < 0)
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,153 @@
+package xyz.geik.gmanager.api.lang;
+
+import lombok.NonNull;
+import org.bukkit.command.CommandSender;
+import xyz.geik.glib.shades.okaeri.configs.OkaeriConfig;
+import xyz.geik.gmanager.GManager;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Compiled messages of a lang section, such as {@code LangFile.Messages}.
+ * <br/>
+ * Messages are read through the getters of the section, such as
+ * {@code MessageTemplates.of(messages).send(sender, messages::getNoPerm)}, and their
+ * templates are cached by the message text. Every string field of the section is
+ * compiled up front. {@code {prefix}} is filled in with the {@code prefix} field of
+ * the section, or the prefix of GManager if the section has none.
+ * Sections are compiled once, a reloaded lang file is compiled again by
+ * {@link #precompile(OkaeriConfig)}.
+ */
+public class MessageTemplates {
+
+    private static final String PREFIX = "prefix";
+    /**
+     * Compiled sections, dropped together with their section
+     */
+    private static final Map<Object, MessageTemplates> COMPILED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final MessageTemplate EMPTY = MessageTemplate.compile(null);
+
+    /**
+     * Templates by the message they were compiled from
+     */
+    private final Map<String, MessageTemplate> templates;
+    private final Map<String, String> constants;
+
+    private MessageTemplates(Map<String, MessageTemplate> templates, Map<String, String> constants) {
+        this.templates = templates;
+        this.constants = constants;
+    }
+
+    /**
+     * Gets the compiled messages of a lang section, compiling them on first use
+     *
+     * @param section lang section
+     * @return compiled messages
+     */
+    @NonNull
+    public static MessageTemplates of(@NonNull OkaeriConfig section) {
+        MessageTemplates compiled = COMPILED.get(section);
+        if (compiled == null) {
+            compiled = compile(section);
+            COMPILED.put(section, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Compiles a lang file and the sections in it, so no message is compiled while it is sent.
+     * Compiled ones are replaced, the lang may have been loaded again in place.
+     *
+     * @param lang lang file
+     */
+    public static void precompile(@NonNull OkaeriConfig lang) {
+        COMPILED.put(lang, compile(lang));
+        for (Class<?> type = lang.getClass(); type != null && type != OkaeriConfig.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!OkaeriConfig.class.isAssignableFrom(field.getType()) || Modifier.isStatic(field.getModifiers()))
+                    continue;
+                try {
+                    field.setAccessible(true);
+                    Object section = field.get(lang);
+                    if (section != null)
+                        COMPILED.put(section, compile((OkaeriConfig) section));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    GManager.getInstance().logWarning("Could not read lang section " + field.getName() + ": "
+                            + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param message getter of the message on the section, such as {@code messages::getNoPerm}
+     * @return template, an empty one if the message is null
+     */
+    @NonNull
+    public MessageTemplate get(@NonNull Supplier<String> message) {
+        String raw = message.get();
+        if (raw == null)
+            return EMPTY;
+        return templates.computeIfAbsent(raw, key -> MessageTemplate.compile(key, constants));
+    }
+
+    /**
+     * Renders a message
+     *
+     * @param message getter of the message on the section
+     * @param placeholders placeholder names followed by their values
+     * @return message
+     */
+    @NonNull
+    public String render(@NonNull Supplier<String> message, @NonNull Object... placeholders) {
+        return get(message).render(placeholders);
+    }
+
+    /**
+     * Renders a message and sends it
+     *
+     * @param sender receiver
+     * @param message getter of the message on the section
+     * @param placeholders placeholder names followed by their values
+     */
+    public void send(@NonNull CommandSender sender, @NonNull Supplier<String> message,
+                     @NonNull Object... placeholders) {
+        get(message).send(sender, placeholders);
+    }
+
+    private static MessageTemplates compile(OkaeriConfig section) {
+        Map<String, String> messages = new HashMap<>();
+        // Subclasses of a lang may hide the fields of its parent
+        for (Class<?> type = section.getClass(); type != null && type != OkaeriConfig.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getType() != String.class || Modifier.isStatic(field.getModifiers())
+                        || messages.containsKey(field.getName()))
+                    continue;
+                try {
+                    field.setAccessible(true);
+                    messages.put(field.getName(), (String) field.get(section));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    GManager.getInstance().logWarning("Could not read lang message " + field.getName() + ": "
+                            + e.getMessage());
+                }
+            }
+        }
+        String prefix = messages.get(PREFIX);
+        if (prefix == null && section != GManager.getLangFile().getMessages())
+            prefix = GManager.getLangFile().getMessages().getPrefix();
+        Map<String, String> constants = prefix == null ? Map.of() : Map.of(PREFIX, prefix);
+        Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+        for (String raw : messages.values())
+            if (raw != null)
+                templates.computeIfAbsent(raw, key -> MessageTemplate.compile(key, constants));
+        return new MessageTemplates(templates, constants);
+    }
+}
@@ -1,12 +1,18 @@
 package xyz.geik.gmanager.api.managers;
 
+import lombok.Getter;
 import lombok.NonNull;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
 import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.plugin.InvalidDescriptionException;
 import org.bukkit.plugin.Plugin;
@@ -14,20 +20,44 @@ import org.bukkit.plugin.PluginLoader;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.util.permissions.DefaultPermissions;
 import xyz.geik.gmanager.GManager;
+import xyz.geik.gmanager.api.config.ConfigHandle;
+import xyz.geik.gmanager.api.modules.LibraryManager;
 import xyz.geik.gmanager.api.modules.ModuleClassLoader;
+import xyz.geik.gmanager.api.modules.ModuleDescription;
+import xyz.geik.gmanager.api.modules.ModuleGraph;
+import xyz.geik.gmanager.api.modules.ModuleIndex;
+import xyz.geik.gmanager.api.modules.ModuleRegistry;
 import xyz.geik.gmanager.api.modules.Pladdon;
 import xyz.geik.gmanager.api.modules.exceptions.InvalidModuleDescriptionException;
 import xyz.geik.gmanager.api.modules.exceptions.InvalidModuleFormatException;
 import xyz.geik.gmanager.api.modules.exceptions.InvalidModuleInheritException;
+import xyz.geik.gmanager.api.modules.requests.ModuleRequestCache;
+import xyz.geik.gmanager.api.modules.requests.ModuleRequestExecutor;
+import xyz.geik.gmanager.api.profiler.ListenerTimings;
+import xyz.geik.gmanager.api.profiler.ModuleProfiler;
+import xyz.geik.gmanager.api.scheduler.MainThreadExecutor;
+import xyz.geik.gmanager.api.scheduler.ModuleScheduler;
+import xyz.geik.gmanager.api.scheduler.TickClock;
+import xyz.geik.gmanager.api.scheduler.WorkQueue;
+import xyz.geik.gmanager.api.watcher.FileWatcher;
 import xyz.geik.gmanager.modules.Module;
 import xyz.geik.gmanager.modules.events.ModuleEvent;
+import xyz.geik.gmanager.modules.events.ModuleRequestInvalidateEvent;
 
 import javax.annotation.Nullable;
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.net.MalformedURLException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -36,28 +66,184 @@ import java.util.jar.JarFile;
  */
 public class ModuleManager {
     private static final String DEFAULT = ".default";
+    private static final int MISSING_CLASSES_LIMIT = 4096;
     @NonNull
-    private final List<Module> modules;
+    private final ModuleRegistry registry;
     @NonNull
     private final Map<@NonNull Module, ModuleClassLoader> loaders;
     @NonNull
     private final Map<@NonNull Module, Plugin> pladdons;
     @NonNull
     private final Map<String, Class<?>> classes;
+    /**
+     * Owner loader of every class shipped in an indexed addon jar
+     */
+    @NonNull
+    private final Map<String, ModuleClassLoader> classOwners;
+    /**
+     * Loaders whose jar content is unknown, these still have to be scanned
+     */
+    @NonNull
+    private final List<ModuleClassLoader> unindexedLoaders;
+    /**
+     * Class names which no addon provides
+     */
+    @NonNull
+    private final Set<String> missingClasses;
     private final GManager plugin;
     @NonNull
     private final Map<@NonNull Module, @NonNull List<Listener>> listeners;
 
     private final PluginLoader pluginLoader;
 
+    /**
+     * Executor of the asynchronous module requests
+     */
+    @Getter
+    private final ModuleRequestExecutor requestExecutor;
+
+    private final MainThreadExecutor mainThread;
+
+    /**
+     * Tick counter shared by the module schedulers
+     */
+    @Getter
+    private final TickClock tickClock;
+
+    /**
+     * Queue spreading the chunked work of the addons over the ticks
+     */
+    @Getter
+    private final WorkQueue workQueue;
+
+    /**
+     * Time and memory spent on the lifecycle phases of the addons
+     */
+    @Getter
+    private final ModuleProfiler profiler;
+
+    /**
+     * Cost of the event handlers of the addons
+     */
+    @Getter
+    private final ListenerTimings listenerTimings;
+
+    /**
+     * Libraries shared by the addons
+     */
+    @Getter
+    private final LibraryManager libraryManager;
+
+    /**
+     * True while registered addons are waiting to be sorted
+     */
+    private boolean sortPending;
+
+    /**
+     * Parsed descriptions of the addon jars from the previous boots
+     */
+    private final ModuleIndex moduleIndex;
+
+    /**
+     * Lazy addons waiting for their activation commands, only touched on the main thread
+     */
+    @NonNull
+    private final Map<String, Module> lazyCommands = new HashMap<>();
+
+    /**
+     * Listeners of the activation events of the lazy addons
+     */
+    @NonNull
+    private final Map<Module, Listener> lazyEventListeners = new HashMap<>();
+
+    /**
+     * Lazy addons which are being activated, their onEnable may use their own requests
+     */
+    @NonNull
+    private final Set<Module> activating = new HashSet<>();
+
+    /**
+     * Watcher of the addons folder, null unless enabled in the config
+     */
+    @Nullable
+    private FileWatcher addonWatcher;
+
+    /**
+     * Watcher of the config and lang files, null unless enabled in the config
+     */
+    @Nullable
+    private FileWatcher configWatcher;
+
     public ModuleManager(@NonNull GManager plugin) {
         this.plugin = plugin;
-        modules = new ArrayList<>();
+        registry = new ModuleRegistry();
         loaders = new HashMap<>();
         pladdons = new HashMap<>();
-        classes = new HashMap<>();
+        classes = new ConcurrentHashMap<>();
+        classOwners = new ConcurrentHashMap<>();
+        unindexedLoaders = new CopyOnWriteArrayList<>();
+        missingClasses = ConcurrentHashMap.newKeySet();
         listeners = new HashMap<>();
         pluginLoader = plugin.getPluginLoader();
+        moduleIndex = ModuleIndex.load(new File(plugin.getDataFolder(), "module-index.dat"));
+        requestExecutor = new ModuleRequestExecutor(GManager.getConfigFile().getSettings().getRequestThreads(),
+                GManager.getConfigFile().getSettings().isRequestVirtualThreads());
+        mainThread = new MainThreadExecutor(plugin);
+        tickClock = new TickClock(plugin);
+        workQueue = new WorkQueue(plugin, GManager.getConfigFile().getSettings().getWorkQueueBudget());
+        profiler = new ModuleProfiler();
+        listenerTimings = new ListenerTimings();
+        libraryManager = new LibraryManager(new File(plugin.getDataFolder(), "libraries"),
+                this.getClass().getClassLoader());
+        Bukkit.getPluginManager().registerEvents(new RequestCacheListener(), plugin);
+        Bukkit.getPluginManager().registerEvents(new LazyCommandListener(), plugin);
+    }
+
+    /**
+     * Activates lazy addons right before their activation commands are dispatched
+     */
+    private class LazyCommandListener implements Listener {
+
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+            activateByCommand(event.getMessage());
+        }
+
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void onServerCommand(ServerCommandEvent event) {
+            activateByCommand(event.getCommand());
+        }
+
+        private void activateByCommand(String commandLine) {
+            if (lazyCommands.isEmpty())
+                return;
+            String label = commandLine.startsWith("/") ? commandLine.substring(1) : commandLine;
+            int space = label.indexOf(' ');
+            if (space >= 0)
+                label = label.substring(0, space);
+            // Strip the namespace of "plugin:command"
+            label = label.substring(label.indexOf(':') + 1).toLowerCase(Locale.ENGLISH);
+            Module module = lazyCommands.get(label);
+            if (module != null)
+                activateAddon(module);
+        }
+    }
+
+    /**
+     * Invalidates request caches when a {@link ModuleRequestInvalidateEvent} is called
+     */
+    private static class RequestCacheListener implements Listener {
+
+        @EventHandler
+        public void onInvalidate(ModuleRequestInvalidateEvent event) {
+            Module module = event.getModule();
+            if (event.getLabel() == null)
+                module.invalidateRequestCaches();
+            else if (event.getMetaData() == null)
+                module.invalidateRequestCache(event.getLabel());
+            else
+                module.invalidateRequestCache(event.getLabel(), event.getMetaData());
+        }
     }
 
     /**
@@ -86,7 +272,7 @@ public class ModuleManager {
             module.setDataFolder(parent.getDataFolder());
             // Initialize
             initializeAddon(module);
-            sortAddons();
+            requestSort();
 
         } catch (Exception e) {
             plugin.logError("Failed to register addon: " + e);
@@ -111,8 +297,15 @@ public class ModuleManager {
             plugin.logError("Cannot create addons folder!");
             return;
         }
-        Arrays.stream(Objects.requireNonNull(f.listFiles()))
-                .filter(x -> !x.isDirectory() && x.getName().endsWith(".jar")).forEach(this::loadAddon);
+        List<File> jars = Arrays.stream(Objects.requireNonNull(f.listFiles()))
+                .filter(x -> !x.isDirectory() && x.getName().endsWith(".jar")).toList();
+        // Jars are opened and described in parallel, the Bukkit side stays on the main thread in folder order
+        long start = System.nanoTime();
+        List<DiscoveredAddon> discovered = discoverAddons(jars);
+        moduleIndex.retain(jars);
+        moduleIndex.save();
+        plugin.log("Discovered " + discovered.size() + " addon jars in " + toMillis(System.nanoTime() - start) + " ms.");
+        discovered.forEach(this::loadAddon);
         plugin.log("Loaded " + getLoadedAddons().size() + " addons.");
 
         if (!getLoadedAddons().isEmpty()) {
@@ -123,15 +316,101 @@ public class ModuleManager {
     private record PladdonData(Module module, boolean success) {
     }
 
-    private void loadAddon(@NonNull File f) {
-        PladdonData result = new PladdonData(null, false);
+    /**
+     * Result of the discovery phase of a single addon jar
+     * @param file jar file
+     * @param description parsed addon.yml, null if discovery failed
+     * @param classes binary names of the classes in the jar
+     * @param error cause of the failure, null if discovery succeeded
+     * @param nanos time spent on opening the jar and parsing the description
+     */
+    private record DiscoveredAddon(File file, ModuleDescription description, List<String> classes, Throwable error,
+                                   long nanos) {
+    }
+
+    /**
+     * Opens the given jars and parses their addon.yml on a bounded worker pool.
+     * Nothing in here touches Bukkit, so it is safe to run off the main thread.
+     *
+     * @param jars addon jars
+     * @return discovery results in the same order as the given jars
+     */
+    @NonNull
+    private List<DiscoveredAddon> discoverAddons(@NonNull List<File> jars) {
+        if (jars.isEmpty())
+            return Collections.emptyList();
+        int threads = Math.max(1, Math.min(jars.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = ModuleRequestExecutor.newThreadPool("GManager-Discovery", threads);
+        try {
+            List<Future<DiscoveredAddon>> futures = new ArrayList<>(jars.size());
+            jars.forEach(jar -> futures.add(executor.submit(() -> discoverAddon(jar))));
+            List<DiscoveredAddon> result = new ArrayList<>(jars.size());
+            for (int i = 0; i < jars.size(); i++) {
+                try {
+                    result.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    result.add(new DiscoveredAddon(jars.get(i), null, null, e.getCause(), 0L));
+                }
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            plugin.logError("Addon discovery was interrupted!");
+            return Collections.emptyList();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @NonNull
+    private DiscoveredAddon discoverAddon(@NonNull File f) {
+        long start = System.nanoTime();
+        long startBytes = ModuleProfiler.allocatedBytes();
+        // Unchanged jars are served from the index without opening them
+        ModuleIndex.Entry cached = moduleIndex.lookup(f);
+        if (cached != null) {
+            long nanos = System.nanoTime() - start;
+            profiler.reset(cached.description().getName());
+            profiler.record(cached.description().getName(), ModuleProfiler.Phase.INDEX_LOOKUP, start, startBytes);
+            plugin.log("Discovered " + cached.description().getName() + " (" + cached.description().getVersion()
+                    + ") from " + f.getName() + " in " + toMillis(nanos) + " ms (indexed)");
+            return new DiscoveredAddon(f, cached.description(), cached.classes(), null, nanos);
+        }
         try (JarFile jar = new JarFile(f)) {
-            // try loading the addon
+            List<String> classList = ModuleClassLoader.listClasses(jar);
+            long openNanos = System.nanoTime() - start;
+            long openBytes = startBytes < 0 ? -1 : ModuleProfiler.allocatedBytes() - startBytes;
+            long parseStart = System.nanoTime();
+            long parseBytes = ModuleProfiler.allocatedBytes();
             // Get description in the addon.yml file
-            YamlConfiguration data = addonDescription(jar);
+            ModuleDescription description = ModuleClassLoader.asDescription(addonDescription(jar));
+            profiler.reset(description.getName());
+            profiler.record(description.getName(), ModuleProfiler.Phase.DESCRIPTION_PARSE, parseStart, parseBytes);
+            // The jar was opened before the name was known
+            profiler.add(description.getName(), ModuleProfiler.Phase.JAR_OPEN, openNanos, openBytes);
+            moduleIndex.put(f, description, classList);
+            long nanos = System.nanoTime() - start;
+            plugin.log("Discovered " + description.getName() + " (" + description.getVersion() + ") from "
+                    + f.getName() + " in " + toMillis(nanos) + " ms");
+            return new DiscoveredAddon(f, description, classList, null, nanos);
+        } catch (Exception e) {
+            return new DiscoveredAddon(f, null, null, e, System.nanoTime() - start);
+        }
+    }
+
+    private void loadAddon(@NonNull DiscoveredAddon discovered) {
+        File f = discovered.file();
+        if (discovered.error() != null) {
+            // We couldn't read the addon, aborting.
+            plugin.logError("Could not load addon '" + f.getName() + "'. Error is: " + discovered.error().getMessage());
+            plugin.logStacktrace(discovered.error());
+            return;
+        }
+        PladdonData result;
+        try {
             // Check if the addon is already loaded (duplicate version?)
-            String main = data.getString("main");
-            if (main != null && this.getAddonByMainClassName(main).isPresent()) {
+            String main = discovered.description().getMain();
+            if (this.getAddonByMainClassName(main).isPresent()) {
                 getAddonByMainClassName(main).ifPresent(a -> {
                     plugin.logError("Duplicate addon! Addon " + a.getDescription().getName() + " "
                             + a.getDescription().getVersion() + " has already been loaded!");
@@ -140,7 +419,7 @@ public class ModuleManager {
                 return;
             }
             // Load the pladdon or addon if it isn't a pladdon
-            result = loadPladdon(data, f);
+            result = loadPladdon(discovered);
         } catch (Exception e) {
             // We couldn't load the addon, aborting.
             plugin.logError("Could not load addon '" + f.getName() + "'. Error is: " + e.getMessage());
@@ -157,15 +436,21 @@ public class ModuleManager {
         }
     }
 
-    private PladdonData loadPladdon(YamlConfiguration data, @NonNull File f) throws InvalidModuleInheritException,
-            MalformedURLException, InvalidModuleDescriptionException, InstantiationException, IllegalAccessException,
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private PladdonData loadPladdon(@NonNull DiscoveredAddon discovered) throws InvalidModuleInheritException,
+            IOException, InvalidModuleDescriptionException, InstantiationException, IllegalAccessException,
             InvocationTargetException, NoSuchMethodException, InvalidDescriptionException {
+        ModuleDescription description = discovered.description();
+        File f = discovered.file();
         Module module;
         try {
             Plugin pladdon = Bukkit.getPluginManager().loadPlugin(f);
             if (pladdon != null && pladdon instanceof Pladdon pl) {
                 module = pl.getAddon();
-                module.setDescription(ModuleClassLoader.asDescription(data));
+                module.setDescription(description);
                 // Mark pladdon as enabled.
                 pl.setEnabled();
                 pladdons.put(module, pladdon);
@@ -174,35 +459,69 @@ public class ModuleManager {
                 GManager.getInstance()
                         .log("Failed to load " + f.getName() + ", trying to load it as a GManager addon");
                 // Addon not pladdon
-                ModuleClassLoader moduleClassLoader = new ModuleClassLoader(this, data, f,
-                        this.getClass().getClassLoader());
+                ModuleClassLoader moduleClassLoader = newLoader(description, f);
                 // Get the addon itself
                 module = moduleClassLoader.getModule();
                 // Add to the list of loaders
-                loaders.put(module, moduleClassLoader);
+                registerLoader(module, moduleClassLoader, discovered.classes());
             }
         } catch (Exception ex) {
             // Addon not pladdon
-            ModuleClassLoader moduleClassLoader = new ModuleClassLoader(this, data, f, this.getClass().getClassLoader());
+            ModuleClassLoader moduleClassLoader = newLoader(description, f);
             // Get the addon itself
             module = moduleClassLoader.getModule();
             // Add to the list of loaders
-            loaders.put(module, moduleClassLoader);
+            registerLoader(module, moduleClassLoader, discovered.classes());
         }
         return new PladdonData(module, true);
     }
 
+    /**
+     * Creates the class loader of an addon, its libraries are resolved first
+     * @param description description of the addon
+     * @param f addon jar
+     * @return loader of the addon
+     */
+    private ModuleClassLoader newLoader(@NonNull ModuleDescription description, @NonNull File f) throws IOException,
+            InvalidModuleInheritException, InvalidDescriptionException, InstantiationException, IllegalAccessException,
+            InvocationTargetException, NoSuchMethodException {
+        List<ClassLoader> libraries = libraryManager.resolve(description);
+        try {
+            return new ModuleClassLoader(this, description, f, this.getClass().getClassLoader(), libraries);
+        } catch (Exception e) {
+            libraryManager.release(description.getName());
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the loader of an addon and indexes the classes of its jar
+     * @param module addon
+     * @param moduleClassLoader loader of the addon
+     * @param classList classes of the addon jar, null if unknown
+     */
+    private void registerLoader(@NonNull Module module, @NonNull ModuleClassLoader moduleClassLoader,
+                                @Nullable List<String> classList) {
+        loaders.put(module, moduleClassLoader);
+        if (classList != null)
+            classList.forEach(name -> classOwners.putIfAbsent(name, moduleClassLoader));
+        else
+            unindexedLoaders.add(moduleClassLoader);
+        // A new loader may provide previously missing classes
+        missingClasses.clear();
+        loaders.values().forEach(ModuleClassLoader::clearMissing);
+    }
+
     private void initializeAddon(Module module) {
         // Locales
        // plugin.getLocalesManager().copyLocalesFromAddonJar(addon);
        // plugin.getLocalesManager().loadLocalesFromFile(addon.getDescription().getName());
 
         // Fire the load event
-        new ModuleEvent().builder().addon(module).reason(ModuleEvent.Reason.LOAD).build();
+        new ModuleEvent().builder().addon(module).reason(ModuleEvent.Reason.LOAD).fireIfListened();
 
         // Add it to the list of addons
-        modules.remove(module);
-        modules.add(module);
+        registry.add(module);
         // Checks if this addon is compatible with the current GManager version.
         if (!isAddonCompatibleWithGManager(module)) {
             // It is not, abort.
@@ -213,6 +532,8 @@ public class ModuleManager {
             return;
         }
 
+        long start = System.nanoTime();
+        long startBytes = ModuleProfiler.allocatedBytes();
         try {
             module.setState(Module.State.LOADED);
             // Run the onLoad.
@@ -223,23 +544,230 @@ public class ModuleManager {
         } catch (Exception e) {
             // Unhandled exception. We'll give a bit of debug here.
             handleAddonError(module, e);
+        } finally {
+            profiler.record(module.getDescription().getName(), ModuleProfiler.Phase.ON_LOAD, start, startBytes);
         }
 
     }
 
     /**
-     * Enables all the addons
+     * Enables all the addons.
+     * Addons are enabled one dependency wave at a time, a wave only contains addons
+     * whose dependencies are already enabled. Addons declaring {@code concurrent-startup}
+     * are enabled off the main thread, concurrently with the rest of their wave.
      */
     public void enableAddons() {
-        if (getLoadedAddons().isEmpty())
+        sortIfPending();
+        enableAddons(getLoadedAddons());
+    }
+
+    /**
+     * Enables the given loaded addons in dependency waves
+     * @param loaded addons to enable
+     */
+    private void enableAddons(@NonNull List<Module> loaded) {
+        loaded = deferLazyAddons(loaded);
+        if (loaded.isEmpty())
             return;
-        // Enable GameModes first, then other addons
-        getLoadedAddons().stream().filter(a -> !a.getState().equals(Module.State.DISABLED)).forEach(this::enableAddon);
         plugin.log("Enabling addons...");
-        getLoadedAddons().stream().filter(a -> !a.getState().equals(Module.State.DISABLED)).forEach(this::enableAddon);
+        long start = System.nanoTime();
+        ModuleGraph graph = new ModuleGraph(loaded);
+        Map<Module, Long> durations = new ConcurrentHashMap<>();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = ModuleRequestExecutor.newThreadPool("GManager-Startup", threads);
+        try {
+            graph.getWaves().forEach(wave -> enableWave(wave, executor, durations));
+        } finally {
+            executor.shutdownNow();
+        }
+        // Addons in a dependency cycle can't be ordered, enable them one by one as before
+        graph.getCyclic().forEach(module -> timed(module, durations, () -> enableAddon(module)));
         // Set perms for enabled addons
-        this.getEnabledAddons().forEach(this::setPerms);
-        plugin.log("Addons successfully enabled.");
+        loaded.stream().filter(Module::isEnabled).forEach(module -> {
+            long permsStart = System.nanoTime();
+            long permsBytes = ModuleProfiler.allocatedBytes();
+            setPerms(module);
+            profiler.record(module.getDescription().getName(), ModuleProfiler.Phase.PERMISSIONS, permsStart,
+                    permsBytes);
+        });
+        ModuleGraph.CriticalPath criticalPath = graph.criticalPath(durations);
+        plugin.log("Addons successfully enabled in " + toMillis(System.nanoTime() - start) + " ms, critical path "
+                + toMillis(criticalPath.nanos()) + " ms: " + describeChain(criticalPath.modules()));
+        if (!libraryManager.getLibraries().isEmpty())
+            plugin.log(libraryManager.getLibraries().size() + " shared libraries saved "
+                    + libraryManager.getSavedMetaspaceBytes() / 1024 + " KB of metaspace so far");
+        saveProfile();
+    }
+
+    /**
+     * Writes the lifecycle profile of the addons to profile.json in the data folder
+     * @return written file or null if it couldn't be written
+     */
+    @Nullable
+    public File saveProfile() {
+        File file = new File(plugin.getDataFolder(), "profile.json");
+        try {
+            profiler.save(file);
+            return file;
+        } catch (IOException e) {
+            plugin.logWarning("Could not save the addon profile: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the lazy addons which no eager addon depends on for later, their activation
+     * triggers are registered instead.
+     *
+     * @param loaded addons to enable
+     * @return addons to enable now
+     */
+    @NonNull
+    private List<Module> deferLazyAddons(@NonNull List<Module> loaded) {
+        if (loaded.stream().noneMatch(a -> a.getDescription().isLazy()))
+            return loaded;
+        ModuleGraph graph = new ModuleGraph(loaded);
+        List<Module> order = graph.getOrder();
+        Set<Module> deferred = new LinkedHashSet<>();
+        // Dependents come later in the order, so walking it backwards decides them first
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Module module = order.get(i);
+            if (module.getDescription().isLazy() && deferred.containsAll(graph.getDependents(module)))
+                deferred.add(module);
+        }
+        if (deferred.isEmpty())
+            return loaded;
+        deferred.forEach(this::registerTriggers);
+        plugin.log("Deferred lazy addons until first use: " + describeChain(new ArrayList<>(deferred)));
+        return loaded.stream().filter(a -> !deferred.contains(a)).toList();
+    }
+
+    private void registerTriggers(@NonNull Module module) {
+        // A deferred addon may be deferred again by a later hot load
+        unregisterTriggers(module);
+        module.getDescription().getActivationCommands()
+                .forEach(command -> lazyCommands.put(command.toLowerCase(Locale.ENGLISH), module));
+        if (module.getDescription().getActivationEvents().isEmpty())
+            return;
+        Listener trigger = new Listener() {
+        };
+        for (String eventName : module.getDescription().getActivationEvents()) {
+            try {
+                Class<? extends Event> type = Class.forName(eventName).asSubclass(Event.class);
+                // Async events hand the activation over to the main thread
+                Bukkit.getPluginManager().registerEvent(type, trigger, EventPriority.LOWEST,
+                        (listener, event) -> mainThread.execute(() -> activateAddon(module)), plugin);
+            } catch (ClassNotFoundException | ClassCastException e) {
+                plugin.logWarning(module.getDescription().getName() + " declares an unknown activation event: "
+                        + eventName);
+            } catch (RuntimeException | LinkageError e) {
+                // Such as an event without a handler list, the other triggers are still registered
+                plugin.logWarning(module.getDescription().getName() + " declares an activation event which"
+                        + " can't be listened to: " + eventName + " (" + e + ")");
+            }
+        }
+        lazyEventListeners.put(module, trigger);
+    }
+
+    private void unregisterTriggers(@NonNull Module module) {
+        lazyCommands.values().removeIf(module::equals);
+        Listener trigger = lazyEventListeners.remove(module);
+        if (trigger != null)
+            HandlerList.unregisterAll(trigger);
+    }
+
+    /**
+     * Enables a lazy addon which is still waiting for its first use, together with the
+     * lazy addons it depends on. Called off the main thread, it waits for the main thread.
+     *
+     * @param module addon
+     * @return true if the addon is enabled
+     */
+    public boolean activateAddon(@NonNull Module module) {
+        if (!Bukkit.isPrimaryThread())
+            return mainThread.call(() -> activateAddon(module));
+        if (module.getState() != Module.State.LOADED || !activating.add(module))
+            return module.isEnabled();
+        try {
+            for (String dependency : module.getDescription().getDependencies()) {
+                Module required = registry.getByName(dependency);
+                if (required != null && required.getState() == Module.State.LOADED && !activateAddon(required)) {
+                    plugin.logError("Cannot activate " + module.getDescription().getName() + " because "
+                            + dependency + " could not be enabled!");
+                    return false;
+                }
+            }
+            unregisterTriggers(module);
+            plugin.log("Activating " + module.getDescription().getName() + " on first use...");
+            enableAddon(module);
+            if (module.isEnabled()) {
+                long start = System.nanoTime();
+                long startBytes = ModuleProfiler.allocatedBytes();
+                setPerms(module);
+                profiler.record(module.getDescription().getName(), ModuleProfiler.Phase.PERMISSIONS, start,
+                        startBytes);
+            }
+            return module.isEnabled();
+        } finally {
+            activating.remove(module);
+        }
+    }
+
+    /**
+     * Enables a wave of independent addons. Concurrent ones are started first on the executor,
+     * then the others run on the main thread, which finally serves the main thread calls of the
+     * concurrent ones until they are done.
+     *
+     * @param wave addons which don't depend on each other
+     * @param executor executor of the concurrent addons
+     * @param durations time spent on enabling each addon
+     */
+    private void enableWave(@NonNull List<Module> wave, @NonNull ExecutorService executor,
+                            @NonNull Map<Module, Long> durations) {
+        Map<Module, CompletableFuture<Throwable>> concurrent = new LinkedHashMap<>();
+        for (Module module : wave) {
+            if (module.getState() == Module.State.LOADED && module.getDescription().isConcurrentStartup()) {
+                plugin.log("Enabling " + module.getDescription().getName() + " ("
+                        + module.getDescription().getVersion() + ") concurrently...");
+                concurrent.put(module, CompletableFuture.supplyAsync(() -> {
+                    long begin = System.nanoTime();
+                    long beginBytes = ModuleProfiler.allocatedBytes();
+                    try {
+                        module.onEnable();
+                        return null;
+                    } catch (Throwable e) {
+                        return e;
+                    } finally {
+                        durations.put(module, System.nanoTime() - begin);
+                        profiler.record(module.getDescription().getName(), ModuleProfiler.Phase.ON_ENABLE, begin,
+                                beginBytes);
+                    }
+                }, executor));
+            }
+        }
+        wave.stream().filter(module -> !concurrent.containsKey(module))
+                .forEach(module -> timed(module, durations, () -> enableAddon(module)));
+        if (concurrent.isEmpty())
+            return;
+        long timeout = TimeUnit.SECONDS.toNanos(GManager.getConfigFile().getSettings().getConcurrentStartupTimeout());
+        mainThread.pumpUntil(CompletableFuture.allOf(concurrent.values().toArray(new CompletableFuture[0])), timeout);
+        concurrent.forEach((module, future) -> {
+            if (future.isDone()) {
+                completeEnable(module, future.join());
+                return;
+            }
+            completeEnable(module, new TimeoutException(module.getDescription().getName()
+                    + " did not finish enabling in " + TimeUnit.NANOSECONDS.toSeconds(timeout) + " seconds"));
+            // Its thread is interrupted once the startup executor shuts down, anything it
+            // registered until it returns is released then
+            future.whenComplete((error, failure) -> mainThread.execute(() -> releaseRuntime(module)));
+        });
+    }
+
+    private static void timed(@NonNull Module module, @NonNull Map<Module, Long> durations, @NonNull Runnable task) {
+        long begin = System.nanoTime();
+        task.run();
+        durations.put(module, System.nanoTime() - begin);
     }
 
     boolean setPerms(Module module) {
@@ -280,21 +808,63 @@ public class ModuleManager {
     private void enableAddon(Module module) {
         plugin.log(
                 "Enabling " + module.getDescription().getName() + " (" + module.getDescription().getVersion() + ")...");
+        long start = System.nanoTime();
+        long startBytes = ModuleProfiler.allocatedBytes();
+        Throwable error = null;
         try {
             module.onEnable();
-            if (module.getState().equals(Module.State.DISABLED)) {
-                plugin.log(module.getDescription().getName() + " is disabled.");
-                return;
-            }
-            new ModuleEvent().builder().addon(module).reason(ModuleEvent.Reason.ENABLE).build();
-            module.setState(Module.State.ENABLED);
-        } catch (NoClassDefFoundError | NoSuchMethodError | NoSuchFieldError e) {
+        } catch (NoClassDefFoundError | NoSuchMethodError | NoSuchFieldError | Exception e) {
+            error = e;
+        }
+        profiler.record(module.getDescription().getName(), ModuleProfiler.Phase.ON_ENABLE, start, startBytes);
+        completeEnable(module, error);
+    }
+
+    /**
+     * Finishes enabling an addon on the main thread, once its onEnable returned
+     * @param module addon
+     * @param error error thrown by onEnable, null if it succeeded
+     */
+    private void completeEnable(@NonNull Module module, @Nullable Throwable error) {
+        if (error instanceof NoClassDefFoundError || error instanceof NoSuchMethodError
+                || error instanceof NoSuchFieldError) {
             // Looks like the addon is incompatible, because it tries to refer to missing classes...
-            handleAddonIncompatibility(module, e);
-        } catch (Exception e) {
+            handleAddonIncompatibility(module, (LinkageError) error);
+            return;
+        }
+        if (error != null) {
             // Unhandled exception. We'll give a bit of debug here.
-            handleAddonError(module, e);
+            handleAddonError(module, error);
+            return;
         }
+        if (module.getState().equals(Module.State.DISABLED)) {
+            plugin.log(module.getDescription().getName() + " is disabled.");
+            return;
+        }
+        new ModuleEvent().builder().addon(module).reason(ModuleEvent.Reason.ENABLE).fireIfListened();
+        module.setState(Module.State.ENABLED);
+        watchConfigs(module);
+    }
+
+    /**
+     * Creates the scheduler of an addon, with the tick budget of the config
+     * @param module addon
+     * @return scheduler
+     */
+    @NonNull
+    public ModuleScheduler createScheduler(@NonNull Module module) {
+        long budget = (long) (GManager.getConfigFile().getSettings().getAddonTickBudget() * 1_000_000D);
+        return new ModuleScheduler(module, plugin, tickClock, workQueue, budget);
+    }
+
+    /**
+     * Gets the executor of the main thread. Addons starting concurrently use it
+     * to reach Bukkit while the main thread waits for them.
+     * @return main thread executor
+     */
+    @NonNull
+    public MainThreadExecutor getMainThread() {
+        return mainThread;
     }
 
     /**
@@ -314,6 +884,7 @@ public class ModuleManager {
         module.getDescription().getAuthors().forEach(author -> a.append(author).append(" "));
         plugin.logError("Please report this stack trace to the addon's author(s): " + a);
         plugin.logStacktrace(e);
+        releaseRuntime(module);
     }
 
     private boolean isAddonCompatibleWithGManager(@NonNull Module module) {
@@ -332,6 +903,20 @@ public class ModuleManager {
         plugin.logError("Skipping " + module.getDescription().getName() + " due to an unhandled exception...");
         // Send stacktrace, required for addon development
         plugin.logStacktrace(throwable);
+        releaseRuntime(module);
+    }
+
+    /**
+     * Stops what an addon which failed to enable may have started in onEnable
+     * @param module addon
+     */
+    private void releaseRuntime(@NonNull Module module) {
+        List<Listener> registered = listeners.remove(module);
+        if (registered != null)
+            registered.forEach(HandlerList::unregisterAll);
+        listenerTimings.remove(module.getDescription().getName());
+        module.unloadAllCommands();
+        module.cancelTasks();
     }
 
     /**
@@ -344,23 +929,336 @@ public class ModuleManager {
     }
 
     /**
-     * Disable all the enabled addons
+     * Reloads a single addon from its jar while the other addons keep running.
+     * Addons depending on it, directly or not, are restarted as well since they
+     * are linked against its classes. Must be called on the main thread.
+     *
+     * @param name addon name
+     * @return true if the addon is enabled again
+     */
+    public boolean reloadAddon(@NonNull String name) {
+        Module module = getReloadable(name);
+        if (module == null)
+            return false;
+        long start = System.nanoTime();
+        List<Module> unloaded = unloadWithDependents(List.of(module));
+        hotLoad(unloaded.stream().map(Module::getFile).toList());
+        plugin.log("Reloaded " + describeChain(unloaded) + " in " + toMillis(System.nanoTime() - start) + " ms.");
+        Module reloaded = registry.getByName(name);
+        return reloaded != null && reloaded.isEnabled();
+    }
+
+    /**
+     * Unloads a single addon and closes its class loader. Addons depending on it are
+     * restarted, the ones which can't run without it are kept as missing a dependency.
+     * Must be called on the main thread.
+     *
+     * @param name addon name
+     * @return true if the addon was unloaded
+     */
+    public boolean unloadAddon(@NonNull String name) {
+        Module module = getReloadable(name);
+        if (module == null)
+            return false;
+        long start = System.nanoTime();
+        List<Module> unloaded = unloadWithDependents(List.of(module));
+        hotLoad(unloaded.stream().filter(a -> a != module).map(Module::getFile).toList());
+        plugin.log("Unloaded " + module.getDescription().getName() + " in " + toMillis(System.nanoTime() - start)
+                + " ms.");
+        return true;
+    }
+
+    /**
+     * Loads and enables a single addon jar while the other addons keep running.
+     * Running addons depending on it are restarted, so they can link against it.
+     * Must be called on the main thread.
+     *
+     * @param jar addon jar
+     * @return true if the addon got enabled
+     */
+    public boolean loadAddon(@NonNull File jar) {
+        if (getAddonByFile(jar) != null) {
+            plugin.logError("Cannot load " + jar.getName() + " because it is already loaded!");
+            return false;
+        }
+        long start = System.nanoTime();
+        List<Module> loaded = hotLoad(List.of(jar));
+        plugin.log("Loaded " + jar.getName() + " in " + toMillis(System.nanoTime() - start) + " ms.");
+        return loaded.stream().anyMatch(a -> jar.equals(a.getFile()) && a.isEnabled());
+    }
+
+    @Nullable
+    private Module getAddonByFile(@NonNull File jar) {
+        File file = jar.getAbsoluteFile();
+        return registry.getModules().stream().filter(a -> a.getFile() != null
+                && file.equals(a.getFile().getAbsoluteFile())).findFirst().orElse(null);
+    }
+
+    @Nullable
+    private Module getReloadable(@NonNull String name) {
+        Module module = registry.getByName(name);
+        if (module == null) {
+            plugin.logError("Cannot find addon " + name + "!");
+            return null;
+        }
+        if (pladdons.containsKey(module)) {
+            plugin.logError("Cannot reload " + name + " because its lifecycle is handled by the server!");
+            return null;
+        }
+        return module;
+    }
+
+    /**
+     * Disables and unloads the given addons and every addon depending on them, dependents first.
+     * Pladdons are left to the server.
+     *
+     * @param roots addons to unload
+     * @return unloaded addons in loading order
+     */
+    @NonNull
+    private List<Module> unloadWithDependents(@NonNull Collection<Module> roots) {
+        ModuleGraph graph = new ModuleGraph(registry.getModules());
+        Set<Module> affected = new HashSet<>();
+        Deque<Module> queue = new ArrayDeque<>(roots);
+        while (!queue.isEmpty()) {
+            Module module = queue.poll();
+            if (pladdons.containsKey(module)) {
+                plugin.logWarning(module.getDescription().getName() + " is a pladdon and can't be restarted, "
+                        + "it may keep using the classes of the unloaded addons.");
+                continue;
+            }
+            if (affected.add(module))
+                queue.addAll(graph.getDependents(module));
+        }
+        List<Module> order = new ArrayList<>(graph.getOrder());
+        order.addAll(graph.getCyclic());
+        order.retainAll(affected);
+        for (int i = order.size() - 1; i >= 0; i--)
+            unload(order.get(i));
+        return order;
+    }
+
+    /**
+     * Disables an addon and releases its class loader
+     * @param module addon
+     */
+    private void unload(@NonNull Module module) {
+        ModuleClassLoader moduleClassLoader = loaders.get(module);
+        disable(module);
+        if (moduleClassLoader == null)
+            return;
+        try {
+            moduleClassLoader.close();
+        } catch (IOException e) {
+            plugin.logWarning("Could not close the loader of " + module.getDescription().getName() + ": "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the given jars next to the running addons and enables them. Running addons
+     * depending on the loaded ones are restarted first.
+     *
+     * @param jars addon jars
+     * @return the addons which were loaded
+     */
+    @NonNull
+    private List<Module> hotLoad(@NonNull List<File> jars) {
+        if (jars.isEmpty())
+            return Collections.emptyList();
+        List<DiscoveredAddon> discovered = new ArrayList<>(discoverAddons(jars));
+        Set<String> names = new HashSet<>();
+        discovered.stream().filter(d -> d.description() != null).forEach(d -> names.add(d.description().getName()));
+        List<Module> running = getEnabledAddons().stream()
+                .filter(a -> a.getDescription().getDependencies().stream().anyMatch(names::contains)
+                        || a.getDescription().getSoftDependencies().stream().anyMatch(names::contains))
+                .toList();
+        if (!running.isEmpty())
+            discovered.addAll(discoverAddons(unloadWithDependents(running).stream().map(Module::getFile).toList()));
+        moduleIndex.save();
+        Set<Module> before = new HashSet<>(registry.getModules());
+        discovered.forEach(this::loadAddon);
+        sortAddons();
+        enableAddons(getLoadedAddons());
+        return registry.getModules().stream().filter(a -> !before.contains(a)).toList();
+    }
+
+    /**
+     * Starts watching the addons folder. Jars which are added, changed or removed
+     * are loaded, reloaded or unloaded one by one once they stop changing.
+     */
+    public void startAddonWatcher() {
+        if (addonWatcher != null)
+            return;
+        File folder = new File(plugin.getDataFolder(), "addons");
+        try {
+            addonWatcher = new FileWatcher("GManager-AddonWatcher",
+                    GManager.getConfigFile().getSettings().getWatchAddonsDelay());
+            addonWatcher.watch(folder.toPath(), path -> path.getFileName().toString().endsWith(".jar"),
+                    this::onAddonFileChange);
+            plugin.log("Watching " + folder.getPath() + " for addon changes.");
+        } catch (IOException e) {
+            plugin.logError("Cannot watch the addons folder: " + e.getMessage());
+            stopAddonWatcher();
+        }
+    }
+
+    /**
+     * Stops watching the addons folder
+     */
+    public void stopAddonWatcher() {
+        if (addonWatcher != null) {
+            addonWatcher.close();
+            addonWatcher = null;
+        }
+    }
+
+    /**
+     * Starts watching the config.yml and lang files of GManager and the enabled addons.
+     * Changed files are parsed again off the main thread.
+     */
+    public void startConfigWatcher() {
+        if (configWatcher != null)
+            return;
+        try {
+            configWatcher = new FileWatcher("GManager-ConfigWatcher",
+                    GManager.getConfigFile().getSettings().getWatchConfigsDelay());
+        } catch (IOException e) {
+            plugin.logError("Cannot watch the config files: " + e.getMessage());
+            return;
+        }
+        watchConfigFolder(plugin.getDataFolder(), null);
+        getEnabledAddons().forEach(this::watchConfigs);
+    }
+
+    /**
+     * Stops watching the config files
+     */
+    public void stopConfigWatcher() {
+        if (configWatcher != null) {
+            configWatcher.close();
+            configWatcher = null;
+        }
+    }
+
+    /**
+     * Watches the config.yml and lang files of an addon
+     * @param module addon
+     */
+    private void watchConfigs(@NonNull Module module) {
+        if (configWatcher != null && module.getDataFolder() != null)
+            watchConfigFolder(module.getDataFolder(), module);
+    }
+
+    /**
+     * Stops watching the config files of an addon
+     * @param module addon
+     */
+    private void unwatchConfigs(@NonNull Module module) {
+        if (configWatcher == null || module.getDataFolder() == null)
+            return;
+        configWatcher.unwatch(module.getDataFolder().toPath());
+        configWatcher.unwatch(new File(module.getDataFolder(), "lang").toPath());
+    }
+
+    private void watchConfigFolder(@NonNull File folder, @Nullable Module module) {
+        File lang = new File(folder, "lang");
+        try {
+            if (folder.isDirectory())
+                configWatcher.watch(folder.toPath(), path -> path.getFileName().toString().equals("config.yml"),
+                        path -> onConfigFileChange(path, module));
+            if (lang.isDirectory())
+                configWatcher.watch(lang.toPath(), path -> path.getFileName().toString().endsWith(".yml"),
+                        path -> onConfigFileChange(path, module));
+        } catch (IOException e) {
+            plugin.logWarning("Cannot watch the config files in " + folder.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Called on the watcher thread once a config file stopped changing. The file is parsed
+     * there and swapped in, only the onReload of the addon runs on the main thread.
+     * @param path changed file
+     * @param module owner of the file, null for the files of GManager
+     */
+    private void onConfigFileChange(@NonNull Path path, @Nullable Module module) {
+        ConfigHandle<?> handle = GManager.getConfigService().getHandle(path.toFile());
+        // Files which weren't loaded through the config service are left alone
+        if (handle == null || !handle.reloadIfChanged())
+            return;
+        plugin.log("Reloaded " + path.getFileName()
+                + (module == null ? "" : " of " + module.getDescription().getName()));
+        if (module == null)
+            return;
+        mainThread.execute(() -> {
+            if (!module.isEnabled())
+                return;
+            try {
+                module.onReload();
+            } catch (Exception e) {
+                plugin.logError("Error occurred when reloading addon " + module.getDescription().getName());
+                plugin.logStacktrace(e);
+            }
+        });
+    }
+
+    /**
+     * Called on the watcher thread once a jar stopped changing. The jar is checksummed
+     * against the index there, only real content changes reach the main thread.
+     * @param path changed jar
+     */
+    private void onAddonFileChange(@NonNull Path path) {
+        File jar = path.toFile();
+        boolean exists = jar.isFile();
+        // Touched but identical jars are served by the index
+        boolean changed = exists && moduleIndex.lookup(jar) == null;
+        mainThread.execute(() -> {
+            Module module = getAddonByFile(jar);
+            if (!exists) {
+                if (module != null) {
+                    plugin.log(jar.getName() + " was removed, unloading " + module.getDescription().getName());
+                    unloadAddon(module.getDescription().getName());
+                }
+            } else if (module == null) {
+                plugin.log(jar.getName() + " was added, loading it");
+                loadAddon(jar);
+            } else if (changed) {
+                plugin.log(jar.getName() + " was changed, reloading " + module.getDescription().getName());
+                reloadAddon(module.getDescription().getName());
+            }
+        });
+    }
+
+    /**
+     * Disable all the addons and close their class loaders. The ones which failed to enable
+     * and the lazy ones still waiting for their first use are torn down as well.
      */
     public void disableAddons() {
-        if (!getEnabledAddons().isEmpty()) {
+        // Pladdons are disabled by the server
+        List<Module> modules = new ArrayList<>(registry.getModules().stream()
+                .filter(addon -> !pladdons.containsKey(addon)).toList());
+        if (!modules.isEmpty()) {
             plugin.log("Disabling addons...");
-            // Disable addons - pladdons are disabled by the server
-            getEnabledAddons().stream().filter(addon -> !pladdons.containsKey(addon)).forEach(this::disable);
+            // Dependents first
+            Collections.reverse(modules);
+            modules.forEach(this::unload);
             plugin.log("Addons successfully disabled.");
         }
         // Unregister all commands
         GManager.getCommandManager().unregisterCommands();
         // Clear all maps
         listeners.clear();
+        listenerTimings.clear();
+        lazyCommands.clear();
+        lazyEventListeners.values().forEach(HandlerList::unregisterAll);
+        lazyEventListeners.clear();
         pladdons.clear();
-        modules.clear();
+        registry.clear();
         loaders.clear();
         classes.clear();
+        classOwners.clear();
+        unindexedLoaders.clear();
+        missingClasses.clear();
     }
 
     /**
@@ -371,8 +1269,7 @@ public class ModuleManager {
     @NonNull
     @SuppressWarnings("unchecked")
     public <T extends Module> Optional<T> getAddonByName(@NonNull String name) {
-        return modules.stream().filter(a -> a.getDescription().getName().equalsIgnoreCase(name)).map(a -> (T) a)
-                .findFirst();
+        return Optional.ofNullable((T) registry.getByName(name));
     }
 
     /**
@@ -383,8 +1280,7 @@ public class ModuleManager {
     @NonNull
     @SuppressWarnings("unchecked")
     public <T extends Module> Optional<T> getAddonByMainClassName(@NonNull String name) {
-        return modules.stream().filter(a -> a.getDescription().getMain().equalsIgnoreCase(name)).map(a -> (T) a)
-                .findFirst();
+        return Optional.ofNullable((T) registry.getByMainClass(name));
     }
 
     @NonNull
@@ -406,7 +1302,16 @@ public class ModuleManager {
 
     @NonNull
     public List<Module> getAddons() {
-        return modules;
+        return registry.getModules();
+    }
+
+    /**
+     * Gets the registry of the addons, its reads are safe from any thread.
+     * @return module registry
+     */
+    @NonNull
+    public ModuleRegistry getRegistry() {
+        return registry;
     }
 
     /**
@@ -416,7 +1321,7 @@ public class ModuleManager {
      */
     @NonNull
     public List<Module> getLoadedAddons() {
-        return modules.stream().filter(addon -> addon.getState().equals(Module.State.LOADED)).toList();
+        return registry.getByState(Module.State.LOADED);
     }
 
     /**
@@ -426,7 +1331,22 @@ public class ModuleManager {
      */
     @NonNull
     public List<Module> getEnabledAddons() {
-        return modules.stream().filter(addon -> addon.getState().equals(Module.State.ENABLED)).toList();
+        return registry.getByState(Module.State.ENABLED);
+    }
+
+    /**
+     * Gets hit and miss counters of the request response caches.
+     * @return counters by addon name, then by request label
+     */
+    @NonNull
+    public Map<String, Map<String, ModuleRequestCache.Stats>> getRequestCacheStats() {
+        Map<String, Map<String, ModuleRequestCache.Stats>> stats = new TreeMap<>();
+        registry.getModules().forEach(module -> {
+            Map<String, ModuleRequestCache.Stats> moduleStats = module.getRequestCacheStats();
+            if (!moduleStats.isEmpty())
+                stats.put(module.getDescription().getName(), moduleStats);
+        });
+        return stats;
     }
 
     @Nullable
@@ -441,13 +1361,28 @@ public class ModuleManager {
      */
     @Nullable
     public Class<?> getClassByName(@NonNull final String name) {
+        Class<?> clazz = classes.get(name);
+        if (clazz != null || missingClasses.contains(name))
+            return clazz;
         try {
-            return classes.getOrDefault(name, loaders.values().stream().filter(Objects::nonNull)
-                    .map(l -> l.findClass(name, false)).filter(Objects::nonNull).findFirst().orElse(null));
+            // Go straight to the addon that ships the class
+            ModuleClassLoader owner = classOwners.get(name);
+            if (owner != null)
+                clazz = owner.findClass(name, false);
+            // Addons with unknown content are still scanned
+            if (clazz == null)
+                clazz = unindexedLoaders.stream().map(l -> l.findClass(name, false)).filter(Objects::nonNull)
+                        .findFirst().orElse(null);
         } catch (Exception ignored) {
             // Ignored.
         }
-        return null;
+        if (clazz == null) {
+            // Keep the negative cache bounded, it is only a shortcut
+            if (missingClasses.size() >= MISSING_CLASSES_LIMIT)
+                missingClasses.clear();
+            missingClasses.add(name);
+        }
+        return clazz;
     }
 
     /**
@@ -461,63 +1396,111 @@ public class ModuleManager {
     }
 
     /**
-     * Sorts the addons into loading order taking into account dependencies
+     * Asks for the addons to be sorted. Registrations are batched, the addons are
+     * sorted once on the next tick or before they get enabled, whichever comes first.
      */
-    private void sortAddons() {
-        // Lists all available addons as names.
-        List<String> names = modules.stream().map(a -> a.getDescription().getName()).toList();
+    private void requestSort() {
+        if (sortPending)
+            return;
+        sortPending = true;
+        Bukkit.getScheduler().runTask(plugin, this::sortIfPending);
+    }
 
-        // Check that any dependencies exist
-        Iterator<Module> addonsIterator = modules.iterator();
-        while (addonsIterator.hasNext()) {
-            Module a = addonsIterator.next();
+    private void sortIfPending() {
+        if (sortPending)
+            sortAddons();
+    }
+
+    /**
+     * Sorts the addons into loading order taking into account dependencies.
+     * Addons missing a dependency, directly or through another addon, are marked as
+     * {@link Module.State#MISSING_DEPENDENCY}. So are the addons which form a cycle
+     * of dependencies, the cycle is reported. Cycles made of soft dependencies
+     * only don't prevent loading, their addons keep their current order.
+     */
+    private void sortAddons() {
+        sortPending = false;
+        List<Module> modules = new ArrayList<>(registry.getModules());
+        Map<String, Module> byName = new HashMap<>();
+        modules.forEach(a -> byName.putIfAbsent(a.getDescription().getName(), a));
+        // Addons depending on each addon, to propagate missing dependencies
+        Map<String, List<Module>> dependents = new HashMap<>();
+        Deque<Module> missing = new ArrayDeque<>();
+        Set<Module> excluded = new HashSet<>();
+        for (Module a : modules) {
             for (String dependency : a.getDescription().getDependencies()) {
-                if (!names.contains(dependency)) {
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(a);
+                if (!byName.containsKey(dependency) && excluded.add(a)) {
                     plugin.logError(a.getDescription().getName() + " has dependency on " + dependency
                             + " that does not exist. Addon will not load!");
-                    addonsIterator.remove();
-                    break;
+                    missing.add(a);
                 }
             }
         }
+        // Anything depending on an addon which will not load will not load either
+        while (!missing.isEmpty()) {
+            Module a = missing.poll();
+            for (Module dependent : dependents.getOrDefault(a.getDescription().getName(), Collections.emptyList())) {
+                if (excluded.add(dependent)) {
+                    plugin.logError(dependent.getDescription().getName() + " has dependency on "
+                            + a.getDescription().getName() + " that will not load. Addon will not load!");
+                    missing.add(dependent);
+                }
+            }
+        }
+        List<Module> candidates = modules.stream().filter(a -> !excluded.contains(a)).toList();
 
-        // Load dependencies or soft dependencies
-        Map<String, Module> sortedAddons = new LinkedHashMap<>();
-        // Start with nodes with no dependencies
-        modules.stream()
-                .filter(a -> a.getDescription().getDependencies().isEmpty()
-                        && a.getDescription().getSoftDependencies().isEmpty())
-                .forEach(a -> sortedAddons.put(a.getDescription().getName(), a));
-        // Fill remaining
-        List<Module> remaining = modules.stream().filter(a -> !sortedAddons.containsKey(a.getDescription().getName()))
-                .toList();
-
-        // Run through remaining addons
-        remaining.forEach(addon -> {
-            // Get the addon's dependencies.
-            List<String> dependencies = new ArrayList<>(addon.getDescription().getDependencies());
-            dependencies.addAll(addon.getDescription().getSoftDependencies());
-
-            // Remove already sorted addons (dependencies) from the list
-            dependencies.removeIf(sortedAddons::containsKey);
+        // Hard dependency cycles can never be satisfied
+        ModuleGraph hardGraph = new ModuleGraph(candidates, false);
+        if (!hardGraph.getCyclic().isEmpty()) {
+            plugin.logError("Dependency cycle found: " + describeChain(hardGraph.findCycle())
+                    + ". These addons will not load: " + describeChain(hardGraph.getCyclic()));
+            excluded.addAll(hardGraph.getCyclic());
+            candidates = hardGraph.getOrder();
+        }
 
-            if (dependencies.stream()
-                    .noneMatch(dependency -> addon.getDescription().getDependencies().contains(dependency))) {
-                sortedAddons.put(addon.getDescription().getName(), addon);
-            }
+        // Load dependencies or soft dependencies first
+        ModuleGraph graph = new ModuleGraph(candidates);
+        List<Module> sorted = new ArrayList<>(graph.getOrder());
+        if (!graph.getCyclic().isEmpty()) {
+            plugin.logWarning("Soft dependency cycle found: " + describeChain(graph.findCycle())
+                    + ". These addons are loaded in their current order.");
+            sorted.addAll(graph.getCyclic());
+        }
+        sorted.forEach(a -> {
+            if (a.getState() == Module.State.MISSING_DEPENDENCY)
+                a.setState(Module.State.LOADED);
+        });
+        // Keep the excluded ones around, so they can be inspected and recovered once the dependency shows up
+        modules.stream().filter(excluded::contains).forEach(a -> {
+            if (a.getState() == Module.State.LOADED)
+                a.setState(Module.State.MISSING_DEPENDENCY);
+            sorted.add(a);
         });
+        registry.setAll(sorted);
+    }
 
-        modules.clear();
-        modules.addAll(sortedAddons.values());
+    @NonNull
+    private static String describeChain(@NonNull List<Module> chain) {
+        return String.join(" -> ", chain.stream().map(a -> a.getDescription().getName()).toList());
     }
 
     /**
-     * Register a listener
+     * Register a listener, on the main thread if called from another one
      * @param module - the addon registering
      * @param listener - listener
      */
     public void registerListener(@NonNull Module module, @NonNull Listener listener) {
-        Bukkit.getPluginManager().registerEvents(listener, GManager.getInstance());
+        // Addons starting concurrently register from the startup threads
+        if (!Bukkit.isPrimaryThread()) {
+            mainThread.call(() -> {
+                registerListener(module, listener);
+                return null;
+            });
+            return;
+        }
+        // Handlers are timed under the addon, Bukkit would only see GManager
+        listenerTimings.register(module.getDescription().getName(), listener, plugin, pluginLoader);
         listeners.computeIfAbsent(module, k -> new ArrayList<>()).add(listener);
     }
 
@@ -531,13 +1514,20 @@ public class ModuleManager {
             listeners.get(module).forEach(HandlerList::unregisterAll);
             listeners.remove(module);
         }
+        listenerTimings.remove(module.getDescription().getName());
+        unregisterTriggers(module);
+        unwatchConfigs(module);
         // Unload all commands
         module.unloadAllCommands();
+        // Cached responses may not be valid for the next instance
+        module.invalidateRequestCaches();
         // Unregister flags
         //plugin.getFlagsManager().unregister(addon);
         // Disable
         if (module.isEnabled()) {
             plugin.log("Disabling " + module.getDescription().getName() + "...");
+            long start = System.nanoTime();
+            long startBytes = ModuleProfiler.allocatedBytes();
             try {
                 module.onDisable();
             } catch (Exception e) {
@@ -545,17 +1535,32 @@ public class ModuleManager {
                 plugin.logError("Report this to the addon's author(s)");
                 module.getDescription().getAuthors().forEach(plugin::logError);
                 plugin.logStacktrace(e);
+            } finally {
+                profiler.record(module.getDescription().getName(), ModuleProfiler.Phase.DISABLE, start, startBytes);
             }
-            new ModuleEvent().builder().addon(module).reason(ModuleEvent.Reason.DISABLE).build();
+            new ModuleEvent().builder().addon(module).reason(ModuleEvent.Reason.DISABLE).fireIfListened();
         }
+        // Tasks must not outlive the addon, one failing to enable may have scheduled some already
+        module.cancelTasks();
         // Clear loaders
         if (loaders.containsKey(module)) {
-            Set<String> unmodifiableSet = Collections.unmodifiableSet(loaders.get(module).getClasses());
+            ModuleClassLoader moduleClassLoader = loaders.get(module);
+            Set<String> unmodifiableSet = Collections.unmodifiableSet(moduleClassLoader.getClasses());
             for (String className : unmodifiableSet) {
                 classes.remove(className);
             }
+            classOwners.values().removeIf(owner -> owner == moduleClassLoader);
+            unindexedLoaders.remove(moduleClassLoader);
             module.setState(Module.State.DISABLED);
             loaders.remove(module);
+            libraryManager.release(module.getDescription().getName());
+        }
+        // Release the jar, so it can be replaced
+        module.closeResources();
+        // Parsed configs hold classes of the addon
+        if (module.getDataFolder() != null) {
+            GManager.getConfigService().forget(module.getDataFolder());
+            GManager.getLocaleManager().forget(module.getDataFolder());
         }
         // Disable pladdons
         if (pladdons.containsKey(module)) {
@@ -563,7 +1568,7 @@ public class ModuleManager {
             pladdons.remove(module);
         }
         // Remove it from the addons list
-        modules.remove(module);
+        registry.remove(module);
     }
 
 
@@ -581,8 +1586,11 @@ public class ModuleManager {
      * @param module Addon that should trigger Addon#allLoaded method.
      */
     private void allLoaded(@NonNull Module module) {
+        long start = System.nanoTime();
+        long startBytes = ModuleProfiler.allocatedBytes();
         try {
             module.allLoaded();
+            profiler.record(module.getDescription().getName(), ModuleProfiler.Phase.ALL_LOADED, start, startBytes);
         } catch (NoClassDefFoundError | NoSuchMethodError | NoSuchFieldError e) {
             // Looks like the addon is incompatible, because it tries to refer to missing classes...
             this.handleAddonIncompatibility(module, e);
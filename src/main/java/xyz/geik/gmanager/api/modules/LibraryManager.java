@@ -0,0 +1,261 @@
+package xyz.geik.gmanager.api.modules;
+
+import lombok.NonNull;
+import xyz.geik.gmanager.GManager;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the libraries declared in the {@code libraries} section of addon.yml.
+ * <br/>
+ * Libraries are read from a local cache laid out like a Maven repository
+ * ({@code group/path/artifact/version/artifact-version.jar}), nothing is
+ * downloaded. Every library is loaded once by a loader shared by all addons,
+ * so addons declaring the same coordinates share the same classes. An addon
+ * asking for another version of an already loaded library gets that version
+ * from a loader of its own.
+ */
+public class LibraryManager {
+
+    /**
+     * A library jar in the shared loader
+     */
+    public static final class Library {
+        private final String coordinates;
+        private final File file;
+        private final Set<String> users = ConcurrentHashMap.newKeySet();
+        private final AtomicLong classes = new AtomicLong();
+        private final AtomicLong metaspaceBytes = new AtomicLong();
+
+        private Library(String coordinates, File file) {
+            this.coordinates = coordinates;
+            this.file = file;
+        }
+
+        /**
+         * @return group:artifact:version
+         */
+        public String getCoordinates() {
+            return coordinates;
+        }
+
+        /**
+         * @return jar of the library
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return names of the addons using the library
+         */
+        public Set<String> getUsers() {
+            return Collections.unmodifiableSet(users);
+        }
+
+        /**
+         * @return classes loaded from the library
+         */
+        public long getClasses() {
+            return classes.get();
+        }
+
+        /**
+         * @return metaspace grown while the classes of the library were defined
+         */
+        public long getMetaspaceBytes() {
+            return metaspaceBytes.get();
+        }
+
+        /**
+         * @return metaspace the addons would have used on top with a copy each
+         */
+        public long getSavedMetaspaceBytes() {
+            return Math.max(0, users.size() - 1) * metaspaceBytes.get();
+        }
+    }
+
+    /**
+     * Shared loader, urls are added as libraries get requested
+     */
+    private static final class SharedLoader extends URLClassLoader {
+
+        static {
+            ClassLoader.registerAsParallelCapable();
+        }
+
+        private final LibraryManager manager;
+
+        private SharedLoader(LibraryManager manager, ClassLoader parent) {
+            super(new URL[0], parent);
+            this.manager = manager;
+        }
+
+        @Override
+        protected void addURL(URL url) {
+            super.addURL(url);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            long before = manager.metaspaceUsed();
+            Class<?> clazz = super.findClass(name);
+            manager.defined(clazz, manager.metaspaceUsed() - before);
+            return clazz;
+        }
+    }
+
+    private final File cache;
+    private final ClassLoader parent;
+    private final SharedLoader sharedLoader;
+    /**
+     * Shared libraries by group:artifact
+     */
+    private final Map<String, Library> libraries = new ConcurrentHashMap<>();
+    private final Map<URL, Library> byUrl = new ConcurrentHashMap<>();
+    /**
+     * Loaders of the versions which conflict with the shared ones, by addon name
+     */
+    private final Map<String, URLClassLoader> privateLoaders = new ConcurrentHashMap<>();
+    @Nullable
+    private final MemoryPoolMXBean metaspace = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getName().equals("Metaspace")).findFirst().orElse(null);
+
+    /**
+     * @param cache root of the library cache
+     * @param parent parent of the library loaders
+     */
+    public LibraryManager(@NonNull File cache, @NonNull ClassLoader parent) {
+        this.cache = cache;
+        this.parent = parent;
+        this.sharedLoader = new SharedLoader(this, parent);
+    }
+
+    /**
+     * Makes the libraries of an addon available
+     *
+     * @param description addon description
+     * @return loaders to look library classes up in, in order
+     * @throws IOException if a library is not in the cache
+     */
+    @NonNull
+    public List<ClassLoader> resolve(@NonNull ModuleDescription description) throws IOException {
+        if (description.getLibraries().isEmpty())
+            return Collections.emptyList();
+        List<URL> conflicting = new ArrayList<>();
+        for (String coordinates : description.getLibraries()) {
+            String[] parts = coordinates.split(":");
+            if (parts.length != 3)
+                throw new IOException("Library '" + coordinates + "' of " + description.getName()
+                        + " is not in group:artifact:version form");
+            File file = locate(parts);
+            String key = parts[0] + ":" + parts[1];
+            Library library;
+            synchronized (libraries) {
+                library = libraries.get(key);
+                if (library == null) {
+                    library = new Library(coordinates, file);
+                    URL url = toUrl(file);
+                    libraries.put(key, library);
+                    byUrl.put(url, library);
+                    sharedLoader.addURL(url);
+                }
+            }
+            if (library.getCoordinates().equals(coordinates)) {
+                library.users.add(description.getName());
+            } else {
+                GManager.getInstance().logWarning(description.getName() + " needs " + coordinates + " but "
+                        + library.getCoordinates() + " is shared, it gets a copy of its own.");
+                conflicting.add(toUrl(file));
+            }
+        }
+        if (conflicting.isEmpty())
+            return List.of(sharedLoader);
+        // Not a child of the shared loader, the shared version would win for the classes in both
+        URLClassLoader own = new URLClassLoader(conflicting.toArray(new URL[0]), parent);
+        URLClassLoader previous = privateLoaders.put(description.getName(), own);
+        closeQuietly(previous);
+        return List.of(own, sharedLoader);
+    }
+
+    /**
+     * Forgets an addon, its own loader is closed. Shared libraries stay loaded
+     * until the server stops as classes can't be removed from a loader.
+     *
+     * @param name addon name
+     */
+    public void release(@NonNull String name) {
+        libraries.values().forEach(library -> library.users.remove(name));
+        closeQuietly(privateLoaders.remove(name));
+    }
+
+    /**
+     * @return shared libraries, the ones saving the most metaspace first
+     */
+    @NonNull
+    public List<Library> getLibraries() {
+        List<Library> list = new ArrayList<>(libraries.values());
+        list.sort(Comparator.comparingLong(Library::getSavedMetaspaceBytes).reversed());
+        return list;
+    }
+
+    /**
+     * @return metaspace the sharing saved so far
+     */
+    public long getSavedMetaspaceBytes() {
+        return libraries.values().stream().mapToLong(Library::getSavedMetaspaceBytes).sum();
+    }
+
+    private File locate(String[] parts) throws FileNotFoundException {
+        String artifact = parts[1] + "-" + parts[2] + ".jar";
+        File file = new File(cache, parts[0].replace('.', File.separatorChar) + File.separator + parts[1]
+                + File.separator + parts[2] + File.separator + artifact);
+        if (file.isFile())
+            return file;
+        // Jars dropped straight into the cache folder are accepted too
+        File flat = new File(cache, artifact);
+        if (flat.isFile())
+            return flat;
+        throw new FileNotFoundException("Library " + String.join(":", parts) + " is missing, put it to "
+                + file.getPath());
+    }
+
+    private void defined(Class<?> clazz, long metaspaceBytes) {
+        CodeSource source = clazz.getProtectionDomain().getCodeSource();
+        Library library = source == null ? null : byUrl.get(source.getLocation());
+        if (library == null)
+            return;
+        library.classes.incrementAndGet();
+        library.metaspaceBytes.addAndGet(Math.max(0, metaspaceBytes));
+    }
+
+    private long metaspaceUsed() {
+        return metaspace == null ? 0 : metaspace.getUsage().getUsed();
+    }
+
+    private static URL toUrl(File file) throws MalformedURLException {
+        return file.toURI().toURL();
+    }
+
+    private static void closeQuietly(@Nullable URLClassLoader loader) {
+        if (loader == null)
+            return;
+        try {
+            loader.close();
+        } catch (IOException ignored) {
+            // Ignored.
+        }
+    }
+}
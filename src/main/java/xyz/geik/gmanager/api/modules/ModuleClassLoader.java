@@ -7,6 +7,7 @@ import xyz.geik.gmanager.api.managers.ModuleManager;
 import xyz.geik.gmanager.api.modules.exceptions.InvalidModuleDescriptionException;
 import xyz.geik.gmanager.api.modules.exceptions.InvalidModuleFormatException;
 import xyz.geik.gmanager.api.modules.exceptions.InvalidModuleInheritException;
+import xyz.geik.gmanager.api.profiler.ModuleProfiler;
 import xyz.geik.gmanager.modules.Module;
 
 import java.io.File;
@@ -15,11 +16,17 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 
 import org.bukkit.Material;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -33,7 +40,36 @@ import javax.annotation.Nullable;
  */
 public class ModuleClassLoader extends URLClassLoader {
 
-    private final Map<String, Class<?>> classes = new HashMap<>();
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    /**
+     * Marks a class which was looked up before and could not be found
+     */
+    private static final Object MISSING = new Object();
+    /**
+     * Maximum amount of misses kept in the cache
+     */
+    private static final int MISSING_LIMIT = 1024;
+
+    /**
+     * Found classes mapped to themselves, misses mapped to {@link #MISSING}
+     */
+    private final Map<String, Object> classes = new ConcurrentHashMap<>();
+    private final AtomicInteger missingCount = new AtomicInteger();
+    /**
+     * Nesting of class definitions on the current thread, only the outermost one is profiled
+     */
+    private static final ThreadLocal<int[]> DEFINE_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+    /**
+     * Name the class loading time is profiled under
+     */
+    private final String profileName;
+    /**
+     * Loaders of the libraries the addon declared, searched after its own jar
+     */
+    private final List<ClassLoader> libraries;
     /**
      * -- GETTER --
      *
@@ -54,6 +90,8 @@ public class ModuleClassLoader extends URLClassLoader {
         super(new URL[]{jarFile.toURI().toURL()});
         this.module = module;
         this.loader = loader;
+        this.profileName = jarFile.getName();
+        this.libraries = Collections.emptyList();
     }
 
     public ModuleClassLoader(ModuleManager addonsManager, YamlConfiguration data, File jarFile, ClassLoader parent)
@@ -63,16 +101,52 @@ public class ModuleClassLoader extends URLClassLoader {
             InvalidModuleDescriptionException,
             InstantiationException,
             IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        this(addonsManager, asDescription(data), jarFile, parent);
+    }
+
+    /**
+     * Creates the loader from an already parsed description, so the addon.yml
+     * doesn't have to be read again.
+     *
+     * @param addonsManager Addons Manager
+     * @param description parsed addon.yml
+     * @param jarFile Jar File
+     * @param parent parent class loader
+     */
+    public ModuleClassLoader(ModuleManager addonsManager, ModuleDescription description, File jarFile, ClassLoader parent)
+            throws InvalidModuleInheritException,
+            MalformedURLException,
+            InvalidDescriptionException,
+            InstantiationException,
+            IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        this(addonsManager, description, jarFile, parent, Collections.emptyList());
+    }
+
+    /**
+     * Creates the loader of an addon which declared libraries
+     *
+     * @param addonsManager Addons Manager
+     * @param description parsed addon.yml
+     * @param jarFile Jar File
+     * @param parent parent class loader
+     * @param libraries loaders of the libraries, see {@link LibraryManager#resolve(ModuleDescription)}
+     */
+    public ModuleClassLoader(ModuleManager addonsManager, ModuleDescription description, File jarFile, ClassLoader parent,
+                             List<ClassLoader> libraries)
+            throws InvalidModuleInheritException,
+            MalformedURLException,
+            InvalidDescriptionException,
+            InstantiationException,
+            IllegalAccessException, InvocationTargetException, NoSuchMethodException {
         super(new URL[]{jarFile.toURI().toURL()}, parent);
 
         loader = addonsManager;
+        profileName = description.getName();
+        this.libraries = List.copyOf(libraries);
 
         Class<?> javaClass;
         try {
-            String mainClass = data.getString("main");
-            if (mainClass == null) {
-                throw new InvalidModuleFormatException("addon.yml does not define a main class!");
-            }
+            String mainClass = description.getMain();
             javaClass = Class.forName(mainClass, true, this);
             if (mainClass.startsWith("xyz.geik.gmanager")) {
                 throw new InvalidModuleFormatException("Package declaration cannot start with 'xyz.geik.gmanager'");
@@ -89,7 +163,7 @@ public class ModuleClassLoader extends URLClassLoader {
         }
 
         module = addonClass.getDeclaredConstructor().newInstance();
-        module.setDescription(asDescription(data));
+        module.setDescription(description);
     }
 
 
@@ -124,6 +198,11 @@ public class ModuleClassLoader extends URLClassLoader {
                 .authors(Objects.requireNonNull(data.getString("authors")))
                 // Optional elements
                 .metrics(data.getBoolean("metrics", true))
+                .concurrentStartup(data.getBoolean("concurrent-startup", false))
+                .lazy(data.getBoolean("lazy", false))
+                .activationCommands(data.getStringList("activate-on.commands"))
+                .activationEvents(data.getStringList("activate-on.events"))
+                .libraries(data.getStringList("libraries"))
                 .repository(data.getString("repository", ""));
 
         String depend = data.getString("depend");
@@ -158,6 +237,21 @@ public class ModuleClassLoader extends URLClassLoader {
         return builder.build();
     }
 
+    /**
+     * Lists the classes contained in an addon jar
+     *
+     * @param jar - addon jar
+     * @return binary names of the classes in the jar
+     */
+    @NonNull
+    public static List<String> listClasses(@NonNull JarFile jar) {
+        return jar.stream().map(JarEntry::getName)
+                .filter(name -> name.endsWith(".class") && !name.startsWith("META-INF/")
+                        && !name.endsWith("module-info.class") && !name.endsWith("package-info.class"))
+                .map(name -> name.substring(0, name.length() - ".class".length()).replace('/', '.'))
+                .toList();
+    }
+
     /* (non-Javadoc)
      * @see java.net.URLClassLoader#findClass(java.lang.String)
      */
@@ -178,32 +272,111 @@ public class ModuleClassLoader extends URLClassLoader {
         if (name.startsWith("xyz.geik.gmanager")) {
             return null;
         }
-        Class<?> result = classes.get(name);
+        Object cached = classes.get(name);
+        if (cached != null) {
+            return cached == MISSING ? null : (Class<?>) cached;
+        }
+        Class<?> result = null;
+        if (checkGlobal) {
+            result = loader.getClassByName(name);
+        }
         if (result == null) {
-            if (checkGlobal) {
-                result = loader.getClassByName(name);
-            }
-
-            if (result == null) {
-                try {
-                    result = super.findClass(name);
-                } catch (ClassNotFoundException | NoClassDefFoundError e) {
-                    // Do nothing.
+            synchronized (getClassLoadingLock(name)) {
+                // Another thread may have defined it while we were waiting
+                cached = classes.get(name);
+                if (cached != null) {
+                    return cached == MISSING ? null : (Class<?>) cached;
+                }
+                result = findLoadedClass(name);
+                if (result == null) {
+                    result = defineFromJar(name);
                 }
                 if (result != null) {
                     loader.setClass(name, result);
-
+                } else {
+                    // Library classes stay out of the global lookup, other addons may use another version
+                    result = findInLibraries(name);
                 }
+                cache(name, result);
             }
-            classes.put(name, result);
+            return result;
         }
+        cache(name, result);
         return result;
     }
 
+    /**
+     * Defines the class from the jar, the time and memory it takes are profiled
+     *
+     * @param name - class name
+     * @return class or null if the jar doesn't contain it
+     */
+    @Nullable
+    private Class<?> defineFromJar(String name) {
+        int[] depth = DEFINE_DEPTH.get();
+        // Super classes are defined within the definition of their subclass, don't count them twice
+        boolean outermost = depth[0]++ == 0;
+        long start = outermost ? System.nanoTime() : 0;
+        long startBytes = outermost ? ModuleProfiler.allocatedBytes() : 0;
+        try {
+            return super.findClass(name);
+        } catch (ClassNotFoundException | NoClassDefFoundError e) {
+            return null;
+        } finally {
+            depth[0]--;
+            if (outermost)
+                loader.getProfiler().record(profileName, ModuleProfiler.Phase.CLASS_LOAD, start, startBytes);
+        }
+    }
+
+    /**
+     * Looks the class up in the libraries of the addon
+     *
+     * @param name - class name
+     * @return class or null if no library contains it
+     */
+    @Nullable
+    private Class<?> findInLibraries(String name) {
+        for (ClassLoader library : libraries) {
+            try {
+                return Class.forName(name, false, library);
+            } catch (ClassNotFoundException | NoClassDefFoundError ignored) {
+                // Try the next one
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Caches the result of a lookup, misses are stored as {@link #MISSING}
+     * and dropped all together once there are too many of them.
+     *
+     * @param name  - class name
+     * @param clazz - class or null if not found
+     */
+    private void cache(String name, @Nullable Class<?> clazz) {
+        if (clazz != null) {
+            classes.put(name, clazz);
+            return;
+        }
+        if (classes.putIfAbsent(name, MISSING) == null && missingCount.incrementAndGet() > MISSING_LIMIT) {
+            clearMissing();
+        }
+    }
+
+    /**
+     * Forgets the cached misses, called when a new addon may provide them.
+     */
+    public void clearMissing() {
+        missingCount.set(0);
+        classes.values().removeIf(value -> value == MISSING);
+    }
+
     /**
      * @return class list
      */
     public Set<String> getClasses() {
-        return classes.keySet();
+        return classes.entrySet().stream().filter(e -> e.getValue() != MISSING).map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
     }
 }
@@ -45,6 +45,27 @@ public final class ModuleDescription {
      * @since 1.11.0
      */
     private final @NonNull String apiVersion;
+    /**
+     * Whether the addon's {@code onEnable} is thread-safe and may run off the main thread,
+     * concurrently with other addons of the same dependency wave.
+     */
+    private final boolean concurrentStartup;
+    /**
+     * Whether the addon is only enabled on first use instead of at boot.
+     */
+    private final boolean lazy;
+    /**
+     * Commands whose first use enables a lazy addon.
+     */
+    private final @NonNull List<String> activationCommands;
+    /**
+     * Fully qualified names of the events whose first call enables a lazy addon.
+     */
+    private final @NonNull List<String> activationEvents;
+    /**
+     * Maven coordinates of the libraries the addon shares with the other addons.
+     */
+    private final @NonNull List<String> libraries;
 
     private ModuleDescription(@NonNull Builder builder) {
         this.main = builder.main;
@@ -59,6 +80,11 @@ public final class ModuleDescription {
         this.icon = builder.icon;
         this.apiVersion = builder.apiVersion;
         this.permissions = builder.permissions;
+        this.concurrentStartup = builder.concurrentStartup;
+        this.lazy = builder.lazy;
+        this.activationCommands = builder.activationCommands;
+        this.activationEvents = builder.activationEvents;
+        this.libraries = builder.libraries;
     }
 
     @NonNull
@@ -164,6 +190,53 @@ public final class ModuleDescription {
         return permissions;
     }
 
+    /**
+     * Returns whether the addon declared its {@code onEnable} as thread-safe.
+     * Such addons are enabled off the main thread, concurrently with the other
+     * addons of the same dependency wave.
+     * @return {@code true} if the addon can be enabled concurrently, {@code false} otherwise.
+     */
+    public boolean isConcurrentStartup() {
+        return concurrentStartup;
+    }
+
+    /**
+     * Returns whether the addon is activated on demand. Lazy addons are loaded at boot
+     * but only enabled on the first request to them, the first use of one of their
+     * activation commands or the first call of one of their activation events.
+     * @return {@code true} if the addon is enabled on first use, {@code false} otherwise.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * @return commands whose first use enables the addon, without slash
+     */
+    @NonNull
+    public List<String> getActivationCommands() {
+        return activationCommands;
+    }
+
+    /**
+     * @return fully qualified names of the events whose first call enables the addon
+     */
+    @NonNull
+    public List<String> getActivationEvents() {
+        return activationEvents;
+    }
+
+    /**
+     * Returns the libraries of the addon as {@code group:artifact:version} coordinates.
+     * They are loaded once from the library cache of GManager and shared by every
+     * addon declaring the same coordinates.
+     * @return library coordinates
+     */
+    @NonNull
+    public List<String> getLibraries() {
+        return libraries;
+    }
+
     public static class Builder {
         @NonNull
         private final String main;
@@ -188,6 +261,14 @@ public final class ModuleDescription {
         private String apiVersion = "1";
         @Nullable
         private ConfigurationSection permissions;
+        private boolean concurrentStartup = false;
+        private boolean lazy = false;
+        @NonNull
+        private List<String> activationCommands = new ArrayList<>();
+        @NonNull
+        private List<String> activationEvents = new ArrayList<>();
+        @NonNull
+        private List<String> libraries = new ArrayList<>();
 
         /**
          * @since 1.1
@@ -265,6 +346,56 @@ public final class ModuleDescription {
             return this;
         }
 
+        /**
+         * Sets whether the addon can be enabled off the main thread.
+         * @param concurrentStartup true if the addon's onEnable is thread-safe
+         */
+        @NonNull
+        public Builder concurrentStartup(boolean concurrentStartup) {
+            this.concurrentStartup = concurrentStartup;
+            return this;
+        }
+
+        /**
+         * Sets whether the addon is enabled on first use instead of at boot.
+         * @param lazy true to enable the addon on demand
+         */
+        @NonNull
+        public Builder lazy(boolean lazy) {
+            this.lazy = lazy;
+            return this;
+        }
+
+        /**
+         * Sets the commands whose first use enables a lazy addon.
+         * @param activationCommands command labels, without slash
+         */
+        @NonNull
+        public Builder activationCommands(@NonNull List<String> activationCommands) {
+            this.activationCommands = activationCommands;
+            return this;
+        }
+
+        /**
+         * Sets the events whose first call enables a lazy addon.
+         * @param activationEvents fully qualified event class names
+         */
+        @NonNull
+        public Builder activationEvents(@NonNull List<String> activationEvents) {
+            this.activationEvents = activationEvents;
+            return this;
+        }
+
+        /**
+         * Sets the shared libraries of the addon.
+         * @param libraries {@code group:artifact:version} coordinates
+         */
+        @NonNull
+        public Builder libraries(@NonNull List<String> libraries) {
+            this.libraries = libraries;
+            return this;
+        }
+
         @NonNull
         public ModuleDescription build() {
             return new ModuleDescription(this);
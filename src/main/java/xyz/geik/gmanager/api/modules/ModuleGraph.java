@@ -0,0 +1,196 @@
+package xyz.geik.gmanager.api.modules;
+
+import lombok.Getter;
+import lombok.NonNull;
+import xyz.geik.gmanager.modules.Module;
+
+import java.util.*;
+
+/**
+ * Dependency graph of modules built from their dependencies and, optionally, soft dependencies.
+ * Dependencies on modules which are not part of the graph are ignored.
+ * <br/>
+ * The modules are grouped in waves with Kahn's algorithm: every module of a
+ * wave only depends on modules of earlier waves, so the modules of a wave
+ * don't depend on each other.
+ */
+public class ModuleGraph {
+
+    private final List<Module> modules;
+    private final Map<Module, List<Module>> dependencies = new HashMap<>();
+    private final Map<Module, List<Module>> dependents = new HashMap<>();
+
+    /**
+     * Waves of modules in dependency order, modules keep their original order inside a wave
+     */
+    @Getter
+    private final List<List<Module>> waves = new ArrayList<>();
+
+    /**
+     * Modules which could not be ordered because they are part of, or depend on, a dependency cycle
+     */
+    @Getter
+    private final List<Module> cyclic = new ArrayList<>();
+
+    /**
+     * Longest chain of a graph, weighted by the time spent on each module
+     * @param modules chain from the first dependency to the last dependent
+     * @param nanos total time of the chain
+     */
+    public record CriticalPath(List<Module> modules, long nanos) {
+    }
+
+    /**
+     * Builds the graph from the dependencies and the soft dependencies of the modules
+     * @param modules modules in their current order
+     */
+    public ModuleGraph(@NonNull Collection<Module> modules) {
+        this(modules, true);
+    }
+
+    /**
+     * Builds the graph of the modules
+     * @param modules modules in their current order
+     * @param softDependencies true to include soft dependencies as edges
+     */
+    public ModuleGraph(@NonNull Collection<Module> modules, boolean softDependencies) {
+        this.modules = new ArrayList<>(modules);
+        Map<String, Module> byName = new HashMap<>();
+        this.modules.forEach(module -> byName.putIfAbsent(module.getDescription().getName(), module));
+        for (Module module : this.modules) {
+            Set<Module> deps = new LinkedHashSet<>();
+            addDependencies(deps, byName, module.getDescription().getDependencies(), module);
+            if (softDependencies)
+                addDependencies(deps, byName, module.getDescription().getSoftDependencies(), module);
+            dependencies.put(module, new ArrayList<>(deps));
+            deps.forEach(dep -> dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(module));
+        }
+        buildWaves();
+    }
+
+    private static void addDependencies(Set<Module> deps, Map<String, Module> byName, List<String> names, Module module) {
+        for (String name : names) {
+            Module dependency = byName.get(name);
+            if (dependency != null && dependency != module)
+                deps.add(dependency);
+        }
+    }
+
+    private void buildWaves() {
+        Map<Module, Integer> position = new HashMap<>();
+        Map<Module, Integer> inDegree = new HashMap<>();
+        List<Module> current = new ArrayList<>();
+        for (Module module : modules) {
+            position.put(module, position.size());
+            int degree = dependencies.get(module).size();
+            inDegree.put(module, degree);
+            if (degree == 0)
+                current.add(module);
+        }
+        int ordered = 0;
+        while (!current.isEmpty()) {
+            waves.add(Collections.unmodifiableList(current));
+            ordered += current.size();
+            List<Module> next = new ArrayList<>();
+            for (Module module : current) {
+                for (Module dependent : getDependents(module)) {
+                    if (inDegree.merge(dependent, -1, Integer::sum) == 0)
+                        next.add(dependent);
+                }
+            }
+            next.sort(Comparator.comparingInt(position::get));
+            current = next;
+        }
+        if (ordered < modules.size())
+            modules.stream().filter(module -> inDegree.get(module) > 0).forEach(cyclic::add);
+    }
+
+    /**
+     * @return ordered modules, every module comes after its dependencies
+     */
+    @NonNull
+    public List<Module> getOrder() {
+        List<Module> order = new ArrayList<>(modules.size());
+        waves.forEach(order::addAll);
+        return order;
+    }
+
+    /**
+     * Finds a dependency cycle among the modules which could not be ordered
+     *
+     * @return modules of the cycle, each one depending on the next, the first one repeated at the end.
+     * Empty if there is no cycle.
+     */
+    @NonNull
+    public List<Module> findCycle() {
+        if (cyclic.isEmpty())
+            return Collections.emptyList();
+        Set<Module> remaining = new HashSet<>(cyclic);
+        // Every remaining module has a remaining dependency, so walking them must loop
+        List<Module> walk = new ArrayList<>();
+        Map<Module, Integer> visited = new HashMap<>();
+        Module current = cyclic.get(0);
+        while (!visited.containsKey(current)) {
+            visited.put(current, walk.size());
+            walk.add(current);
+            current = getDependencies(current).stream().filter(remaining::contains).findFirst().orElseThrow();
+        }
+        List<Module> cycle = new ArrayList<>(walk.subList(visited.get(current), walk.size()));
+        cycle.add(current);
+        return cycle;
+    }
+
+    /**
+     * @param module module
+     * @return modules of the graph the module depends on
+     */
+    @NonNull
+    public List<Module> getDependencies(@NonNull Module module) {
+        return dependencies.getOrDefault(module, Collections.emptyList());
+    }
+
+    /**
+     * @param module module
+     * @return modules of the graph depending on the module
+     */
+    @NonNull
+    public List<Module> getDependents(@NonNull Module module) {
+        return dependents.getOrDefault(module, Collections.emptyList());
+    }
+
+    /**
+     * Finds the chain of dependencies which took the longest
+     *
+     * @param durations time spent on each module, missing modules count as zero
+     * @return critical path
+     */
+    @NonNull
+    public CriticalPath criticalPath(@NonNull Map<Module, Long> durations) {
+        Map<Module, Long> total = new HashMap<>();
+        Map<Module, Module> previous = new HashMap<>();
+        Module last = null;
+        for (Module module : getOrder()) {
+            long best = 0;
+            Module slowest = null;
+            for (Module dependency : getDependencies(module)) {
+                long value = total.getOrDefault(dependency, 0L);
+                if (slowest == null || value > best) {
+                    best = value;
+                    slowest = dependency;
+                }
+            }
+            if (slowest != null)
+                previous.put(module, slowest);
+            long value = best + durations.getOrDefault(module, 0L);
+            total.put(module, value);
+            if (last == null || value > total.get(last))
+                last = module;
+        }
+        if (last == null)
+            return new CriticalPath(Collections.emptyList(), 0);
+        LinkedList<Module> path = new LinkedList<>();
+        for (Module module = last; module != null; module = previous.get(module))
+            path.addFirst(module);
+        return new CriticalPath(path, total.get(last));
+    }
+}
@@ -0,0 +1,265 @@
+package xyz.geik.gmanager.api.modules;
+
+import lombok.NonNull;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import xyz.geik.gmanager.GManager;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk index of parsed addon descriptions.
+ * Entries are keyed by the jar path and validated with the size, the last
+ * modification time and a content hash of the jar, so unchanged jars don't
+ * need to be opened nor their addon.yml parsed on the next boot.
+ */
+public class ModuleIndex {
+
+    /**
+     * Bump whenever the layout of an entry changes, older files are discarded.
+     */
+    private static final int FORMAT_VERSION = 5;
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * Cached state of a single jar
+     * @param size size of the jar
+     * @param lastModified modification time of the jar
+     * @param hash content hash of the jar
+     * @param description parsed addon.yml
+     * @param classes binary names of the classes in the jar
+     */
+    public record Entry(long size, long lastModified, long hash, ModuleDescription description, List<String> classes) {
+    }
+
+    private ModuleIndex(@NonNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the index from the given file. A missing, outdated or corrupted
+     * file results in an empty index.
+     *
+     * @param file index file
+     * @return index
+     */
+    @NonNull
+    public static ModuleIndex load(@NonNull File file) {
+        ModuleIndex index = new ModuleIndex(file);
+        if (!file.exists())
+            return index;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION)
+                return index;
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                index.entries.put(path, new Entry(in.readLong(), in.readLong(), in.readLong(), readDescription(in),
+                        readList(in)));
+            }
+        } catch (Exception e) {
+            index.entries.clear();
+            GManager.getInstance().logWarning("Addon index is corrupted, it will be rebuilt: " + e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Gets the cached entry of the jar if the jar is unchanged since it was indexed.
+     * If only the modification time changed, the content hash decides.
+     *
+     * @param jar addon jar
+     * @return cached entry or null if the jar has to be read again
+     */
+    @Nullable
+    public Entry lookup(@NonNull File jar) {
+        String path = jar.getAbsolutePath();
+        Entry entry = entries.get(path);
+        if (entry == null || entry.size() != jar.length())
+            return null;
+        long lastModified = jar.lastModified();
+        if (entry.lastModified() == lastModified)
+            return entry;
+        try {
+            if (hash(jar) != entry.hash())
+                return null;
+        } catch (IOException e) {
+            return null;
+        }
+        // Same content, only touched
+        Entry touched = new Entry(entry.size(), lastModified, entry.hash(), entry.description(), entry.classes());
+        entries.put(path, touched);
+        dirty = true;
+        return touched;
+    }
+
+    /**
+     * Stores the description of the jar
+     *
+     * @param jar addon jar
+     * @param description parsed addon.yml of the jar
+     * @param classes binary names of the classes in the jar
+     */
+    public void put(@NonNull File jar, @NonNull ModuleDescription description, @NonNull List<String> classes) {
+        try {
+            entries.put(jar.getAbsolutePath(),
+                    new Entry(jar.length(), jar.lastModified(), hash(jar), description, classes));
+            dirty = true;
+        } catch (IOException e) {
+            GManager.getInstance().logWarning("Could not index " + jar.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the entries of jars which are not present anymore
+     *
+     * @param jars current addon jars
+     */
+    public void retain(@NonNull Collection<File> jars) {
+        Set<String> paths = new HashSet<>();
+        jars.forEach(jar -> paths.add(jar.getAbsolutePath()));
+        if (entries.keySet().retainAll(paths))
+            dirty = true;
+    }
+
+    /**
+     * Writes the index to the disk if anything changed
+     */
+    public void save() {
+        if (!dirty)
+            return;
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FORMAT_VERSION);
+            Map<String, Entry> snapshot = new HashMap<>(entries);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().size());
+                out.writeLong(e.getValue().lastModified());
+                out.writeLong(e.getValue().hash());
+                writeDescription(out, e.getValue().description());
+                writeList(out, e.getValue().classes());
+            }
+        } catch (IOException e) {
+            GManager.getInstance().logWarning("Could not save the addon index: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+            GManager.getInstance().logWarning("Could not replace the addon index " + file.getName());
+            return;
+        }
+        dirty = false;
+    }
+
+    /**
+     * Calculates the content hash of a jar
+     *
+     * @param jar jar file
+     * @return CRC32C of the whole file
+     * @throws IOException if the file can't be read
+     */
+    public static long hash(@NonNull File jar) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void writeDescription(DataOutputStream out, ModuleDescription description) throws IOException {
+        out.writeUTF(description.getMain());
+        out.writeUTF(description.getName());
+        out.writeUTF(description.getVersion());
+        out.writeUTF(description.getDescription());
+        writeList(out, description.getAuthors());
+        writeList(out, description.getDependencies());
+        writeList(out, description.getSoftDependencies());
+        out.writeBoolean(description.isMetrics());
+        out.writeUTF(description.getRepository());
+        out.writeUTF(description.getIcon().name());
+        out.writeUTF(description.getApiVersion());
+        out.writeBoolean(description.isConcurrentStartup());
+        out.writeBoolean(description.isLazy());
+        writeList(out, description.getActivationCommands());
+        writeList(out, description.getActivationEvents());
+        writeList(out, description.getLibraries());
+        // Permissions are stored as flat path/value pairs, no yaml is needed to restore them
+        ConfigurationSection permissions = description.getPermissions();
+        if (permissions == null) {
+            out.writeInt(-1);
+            return;
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        permissions.getValues(true).forEach((key, value) -> {
+            if (!(value instanceof ConfigurationSection))
+                values.put(key, value);
+        });
+        out.writeInt(values.size());
+        for (Map.Entry<String, Object> e : values.entrySet()) {
+            out.writeUTF(e.getKey());
+            if (e.getValue() instanceof List<?> list) {
+                out.writeBoolean(true);
+                writeList(out, list.stream().map(String::valueOf).toList());
+            } else {
+                out.writeBoolean(false);
+                out.writeUTF(String.valueOf(e.getValue()));
+            }
+        }
+    }
+
+    private static ModuleDescription readDescription(DataInputStream in) throws IOException {
+        ModuleDescription.Builder builder = new ModuleDescription.Builder(in.readUTF(), in.readUTF(), in.readUTF())
+                .description(in.readUTF())
+                .authors(readList(in).toArray(new String[0]))
+                .dependencies(readList(in))
+                .softDependencies(readList(in))
+                .metrics(in.readBoolean())
+                .repository(in.readUTF());
+        Material icon = Material.getMaterial(in.readUTF());
+        if (icon == null)
+            throw new IOException("unknown icon material");
+        builder.icon(icon).apiVersion(in.readUTF()).concurrentStartup(in.readBoolean()).lazy(in.readBoolean())
+                .activationCommands(readList(in)).activationEvents(readList(in)).libraries(readList(in));
+        int permissions = in.readInt();
+        if (permissions >= 0) {
+            MemoryConfiguration section = new MemoryConfiguration();
+            for (int i = 0; i < permissions; i++) {
+                String key = in.readUTF();
+                section.set(key, in.readBoolean() ? readList(in) : in.readUTF());
+            }
+            builder.permissions(section);
+        }
+        return builder.build();
+    }
+
+    private static void writeList(DataOutputStream out, List<String> list) throws IOException {
+        out.writeInt(list.size());
+        for (String value : list)
+            out.writeUTF(value);
+    }
+
+    private static List<String> readList(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            list.add(in.readUTF());
+        return list;
+    }
+}
@@ -0,0 +1,148 @@
+package xyz.geik.gmanager.api.modules;
+
+import lombok.NonNull;
+import xyz.geik.gmanager.modules.Module;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Registry of the modules known by the {@link xyz.geik.gmanager.api.managers.ModuleManager}.
+ * <br/>
+ * Writes copy the whole registry and publish it as a new immutable snapshot,
+ * so reads are lock-free and safe from any thread. Lookups by name or main
+ * class and the per-state views don't iterate over the modules.
+ */
+public class ModuleRegistry {
+
+    /**
+     * Immutable view of the registry
+     * @param modules modules in loading order
+     * @param byName modules by lower-cased name
+     * @param byMainClass modules by lower-cased main class name
+     * @param byState modules by their state, in loading order
+     */
+    private record Snapshot(List<Module> modules, Map<String, Module> byName, Map<String, Module> byMainClass,
+                            Map<Module.State, List<Module>> byState) {
+    }
+
+    private volatile Snapshot snapshot = build(Collections.emptyList());
+
+    /**
+     * Incremented on every change, lets callers detect that cached lookups are stale
+     */
+    private volatile long version;
+
+    /**
+     * Adds the module to the end of the registry, moving it if it is already there
+     * @param module module
+     */
+    public synchronized void add(@NonNull Module module) {
+        List<Module> modules = new ArrayList<>(snapshot.modules());
+        modules.remove(module);
+        modules.add(module);
+        publish(build(modules));
+    }
+
+    /**
+     * Removes the module from the registry
+     * @param module module
+     */
+    public synchronized void remove(@NonNull Module module) {
+        List<Module> modules = new ArrayList<>(snapshot.modules());
+        if (modules.remove(module))
+            publish(build(modules));
+    }
+
+    /**
+     * Replaces the content of the registry
+     * @param modules modules in loading order
+     */
+    public synchronized void setAll(@NonNull Collection<Module> modules) {
+        publish(build(new ArrayList<>(modules)));
+    }
+
+    /**
+     * Removes every module
+     */
+    public synchronized void clear() {
+        publish(build(Collections.emptyList()));
+    }
+
+    /**
+     * Rebuilds the per-state views, called when a module changes its state
+     */
+    public synchronized void refreshStates() {
+        publish(build(snapshot.modules()));
+    }
+
+    /**
+     * @return version of the registry, changes whenever the registry changes
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return unmodifiable list of the modules in loading order
+     */
+    @NonNull
+    public List<Module> getModules() {
+        return snapshot.modules();
+    }
+
+    /**
+     * @param module module
+     * @return true if the module is registered
+     */
+    public boolean contains(@NonNull Module module) {
+        return snapshot.modules().contains(module);
+    }
+
+    /**
+     * @param name module name, case-insensitive
+     * @return module or null
+     */
+    @Nullable
+    public Module getByName(@NonNull String name) {
+        return snapshot.byName().get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @param mainClass main class name of the module, case-insensitive
+     * @return module or null
+     */
+    @Nullable
+    public Module getByMainClass(@NonNull String mainClass) {
+        return snapshot.byMainClass().get(mainClass.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @param state module state
+     * @return unmodifiable list of modules in the given state, in loading order
+     */
+    @NonNull
+    public List<Module> getByState(@NonNull Module.State state) {
+        return snapshot.byState().getOrDefault(state, Collections.emptyList());
+    }
+
+    private void publish(Snapshot next) {
+        snapshot = next;
+        version++;
+    }
+
+    private static Snapshot build(List<Module> modules) {
+        Map<String, Module> byName = new HashMap<>();
+        Map<String, Module> byMainClass = new HashMap<>();
+        Map<Module.State, List<Module>> byState = new EnumMap<>(Module.State.class);
+        for (Module module : modules) {
+            if (module.getDescription() != null) {
+                byName.putIfAbsent(module.getDescription().getName().toLowerCase(Locale.ENGLISH), module);
+                byMainClass.putIfAbsent(module.getDescription().getMain().toLowerCase(Locale.ENGLISH), module);
+            }
+            byState.computeIfAbsent(module.getState(), k -> new ArrayList<>()).add(module);
+        }
+        byState.replaceAll((state, list) -> List.copyOf(list));
+        return new Snapshot(List.copyOf(modules), byName, byMainClass, byState);
+    }
+}
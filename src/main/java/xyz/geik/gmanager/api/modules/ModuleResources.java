@@ -0,0 +1,212 @@
+package xyz.geik.gmanager.api.modules;
+
+import lombok.NonNull;
+import xyz.geik.gmanager.modules.Module;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Resources of a module jar.
+ * <br/>
+ * The jar is opened on first use and kept open until the module is disabled,
+ * so its central directory is read only once. Small resources are kept in
+ * memory, bigger ones are streamed from the open jar.
+ */
+public class ModuleResources {
+
+    /**
+     * Resources up to this size are cached
+     */
+    private static final int MAX_ENTRY_BYTES = 64 * 1024;
+    /**
+     * Size of the cache of a module, least recently used resources are dropped first
+     */
+    private static final int MAX_CACHE_BYTES = 1024 * 1024;
+    /**
+     * Entries of the cache of a module, bounds the cached misses
+     */
+    private static final int MAX_CACHE_ENTRIES = 1024;
+    /**
+     * Caches a resource the jar doesn't contain
+     */
+    private static final byte[] MISSING = new byte[0];
+
+    private final Module module;
+    /**
+     * Cached resources in access order, guarded by itself
+     */
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long cacheBytes;
+    @Nullable
+    private JarFile jar;
+
+    /**
+     * @param module owner of the jar
+     */
+    public ModuleResources(@NonNull Module module) {
+        this.module = module;
+    }
+
+    /**
+     * Opens a resource of the jar
+     *
+     * @param path path in the jar
+     * @return stream of the resource, the caller closes it, or null if the jar doesn't contain it
+     * @throws IOException if the jar can't be read
+     */
+    @Nullable
+    public InputStream open(@NonNull String path) throws IOException {
+        path = normalize(path);
+        byte[] cached = cached(path);
+        if (cached != null)
+            return cached == MISSING ? null : new ByteArrayInputStream(cached);
+        JarFile jarFile = getJar();
+        JarEntry entry = jarFile.getJarEntry(path);
+        if (entry == null) {
+            store(path, MISSING);
+            return null;
+        }
+        if (entry.getSize() < 0 || entry.getSize() > MAX_ENTRY_BYTES)
+            return jarFile.getInputStream(entry);
+        byte[] bytes;
+        try (InputStream in = jarFile.getInputStream(entry)) {
+            bytes = in.readAllBytes();
+        }
+        store(path, bytes);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Reads a resource of the jar
+     *
+     * @param path path in the jar
+     * @return content of the resource
+     * @throws IOException if the jar doesn't contain it or can't be read
+     */
+    @NonNull
+    public byte[] read(@NonNull String path) throws IOException {
+        try (InputStream in = open(path)) {
+            if (in == null)
+                throw new FileNotFoundException("The embedded resource '" + path + "' cannot be found in "
+                        + module.getFile().getName());
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * @param path path in the jar
+     * @return true if the jar contains the resource
+     * @throws IOException if the jar can't be read
+     */
+    public boolean exists(@NonNull String path) throws IOException {
+        path = normalize(path);
+        byte[] cached = cached(path);
+        if (cached != null)
+            return cached != MISSING;
+        boolean exists = getJar().getJarEntry(path) != null;
+        if (!exists)
+            store(path, MISSING);
+        return exists;
+    }
+
+    /**
+     * Closes the jar and drops the cache, the jar is opened again on the next use.
+     * Streams of big resources opened before can't be read anymore.
+     */
+    public void close() {
+        JarFile current;
+        synchronized (this) {
+            current = jar;
+            jar = null;
+        }
+        synchronized (cache) {
+            cache.clear();
+            cacheBytes = 0;
+        }
+        if (current == null)
+            return;
+        try {
+            current.close();
+        } catch (IOException ignored) {
+            // Ignored.
+        }
+    }
+
+    /**
+     * @return lookups served from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return lookups which read the jar
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return bytes held by the cache
+     */
+    public long getCacheBytes() {
+        synchronized (cache) {
+            return cacheBytes;
+        }
+    }
+
+    private synchronized JarFile getJar() throws IOException {
+        if (jar == null) {
+            File file = module.getFile();
+            if (file == null)
+                throw new FileNotFoundException("The jar of " + module.getDescription().getName() + " is unknown");
+            jar = new JarFile(file);
+        }
+        return jar;
+    }
+
+    @Nullable
+    private byte[] cached(String path) {
+        byte[] bytes;
+        synchronized (cache) {
+            bytes = cache.get(path);
+        }
+        if (bytes != null)
+            hits.increment();
+        else
+            misses.increment();
+        return bytes;
+    }
+
+    private void store(String path, byte[] bytes) {
+        synchronized (cache) {
+            byte[] previous = cache.put(path, bytes);
+            cacheBytes += bytes.length - (previous == null ? 0 : previous.length);
+            var iterator = cache.entrySet().iterator();
+            while ((cacheBytes > MAX_CACHE_BYTES || cache.size() > MAX_CACHE_ENTRIES) && iterator.hasNext()) {
+                Map.Entry<String, byte[]> eldest = iterator.next();
+                cacheBytes -= eldest.getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String normalize(String path) {
+        if (path.isEmpty())
+            throw new IllegalArgumentException("ResourcePath cannot be null or empty");
+        path = path.replace('\\', '/');
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+}
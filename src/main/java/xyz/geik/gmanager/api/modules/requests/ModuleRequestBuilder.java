@@ -8,11 +8,13 @@ import xyz.geik.gmanager.modules.Module;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * API to enable plugins to request data from addons.
  * Addons can expose data that they want to expose. To access it, call this class with the appropriate addon name, the label for the
  * data that is requested and if required, a map of key-value pairs that will be given to the addon.
+ * For frequent requests prefer a {@link ModuleRequestHandle}, which is resolved once and takes typed arguments.
  * @author HyKurtis
  *
  */
@@ -69,4 +71,18 @@ public class ModuleRequestBuilder
         }
         return null;
     }
+
+    /**
+     * Send request to addon on the request executor.
+     *
+     * @return future of the response, completed with null if no response.
+     */
+    public CompletableFuture<Object> requestAsync() {
+        Validate.notNull(addonName);
+        Validate.notNull(requestLabel);
+
+        Optional<Module> addonOptional = GManager.getModuleManager().getAddonByName(addonName);
+        return addonOptional.map(module -> module.requestAsync(requestLabel, metaData))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+    }
 }
\ No newline at end of file
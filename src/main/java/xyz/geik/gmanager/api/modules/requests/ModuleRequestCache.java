@@ -0,0 +1,128 @@
+package xyz.geik.gmanager.api.modules.requests;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Response cache of a single request label of a module.
+ * Null responses are not cached.
+ */
+public class ModuleRequestCache {
+
+    @Getter
+    private final RequestCachePolicy policy;
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Cached response
+     * @param value response
+     * @param expiresAt nano time the response expires at
+     */
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    /**
+     * Snapshot of the counters of a cache
+     * @param hits responses served from the cache
+     * @param misses responses computed by the handler
+     * @param size cached responses
+     */
+    public record Stats(long hits, long misses, int size) {
+
+        /**
+         * @return ratio of the requests served from the cache
+         */
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    public ModuleRequestCache(@NonNull RequestCachePolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Gets the cached response of the meta data or computes it
+     *
+     * @param metaData meta data of the request
+     * @param handler computes the response on a miss
+     * @return response
+     */
+    @Nullable
+    public Object get(@Nullable Map<String, Object> metaData, @NonNull Supplier<Object> handler) {
+        Object key = policy.getKeyFunction().apply(metaData);
+        if (key == null)
+            return handler.get();
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() - now > 0) {
+            hits.increment();
+            return entry.value();
+        }
+        misses.increment();
+        Object value = handler.get();
+        if (value != null) {
+            if (entry == null && entries.size() >= policy.getMaxSize())
+                evict(now);
+            entries.put(key, new Entry(value, now + policy.getTtlNanos()));
+        }
+        else if (entry != null)
+            entries.remove(key, entry);
+        return value;
+    }
+
+    /**
+     * Invalidates the response of the given meta data
+     *
+     * @param metaData meta data of the request
+     */
+    public void invalidate(@Nullable Map<String, Object> metaData) {
+        Object key = policy.getKeyFunction().apply(metaData);
+        if (key != null)
+            entries.remove(key);
+    }
+
+    /**
+     * Invalidates every response
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * @return snapshot of the counters
+     */
+    @NonNull
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), entries.size());
+    }
+
+    /**
+     * Drops expired responses, then the ones closest to expire if the cache is still full
+     *
+     * @param now current nano time
+     */
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+        int excess = entries.size() - policy.getMaxSize() + 1;
+        if (excess <= 0)
+            return;
+        // Make some room at once, so a full cache isn't scanned on every miss
+        int toRemove = Math.max(excess, policy.getMaxSize() / 10);
+        entries.entrySet().stream()
+                .sorted((a, b) -> Long.compare(a.getValue().expiresAt(), b.getValue().expiresAt()))
+                .limit(toRemove)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+    }
+}
@@ -0,0 +1,89 @@
+package xyz.geik.gmanager.api.modules.requests;
+
+import lombok.Getter;
+import lombok.NonNull;
+import xyz.geik.gmanager.GManager;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor of asynchronous module requests.
+ * Uses a fixed pool by default, or one virtual thread per request when it is
+ * enabled in the config and the server runs on Java 21 or newer.
+ */
+public class ModuleRequestExecutor {
+
+    @Getter
+    private final ExecutorService executor;
+
+    /**
+     * @param threads size of the pool when virtual threads are not used
+     * @param virtualThreads true to use virtual threads if the runtime supports them
+     */
+    public ModuleRequestExecutor(int threads, boolean virtualThreads) {
+        ExecutorService virtual = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualThreads && virtual == null)
+            GManager.getInstance().logWarning("Virtual threads require Java 21, using a pool of " + threads + " threads.");
+        this.executor = virtual != null ? virtual : newThreadPool("GManager-Request", Math.max(1, threads));
+    }
+
+    /**
+     * Runs the supplier on the request executor
+     *
+     * @param supplier request
+     * @return future of the response
+     */
+    @NonNull
+    public <R> CompletableFuture<R> supply(@NonNull Supplier<R> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);
+    }
+
+    /**
+     * Stops accepting new requests and waits a bit for the running ones
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS))
+                executor.shutdownNow();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates a fixed pool of named daemon threads
+     *
+     * @param name prefix of the thread names
+     * @param threads pool size
+     * @return executor
+     */
+    @NonNull
+    public static ExecutorService newThreadPool(@NonNull String name, int threads) {
+        AtomicInteger threadId = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a virtual thread per task executor. Looked up reflectively as
+     * GManager is compiled against Java 17.
+     *
+     * @return executor or null if the runtime doesn't support virtual threads
+     */
+    @Nullable
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package xyz.geik.gmanager.api.modules.requests;
+
+import lombok.Getter;
+import lombok.NonNull;
+import xyz.geik.gmanager.GManager;
+import xyz.geik.gmanager.modules.Module;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Reusable, resolved module request.
+ * The addon and the handler are looked up once and kept until the module
+ * registry or the handlers of the addon change, so a request costs a couple
+ * of field reads and the handler call. Resolve it once and keep it:
+ * <pre>
+ * private static final ModuleRequestKey&lt;UUID, Integer&gt; LEVEL = ModuleRequestKey.of("level", UUID.class, Integer.class);
+ * private final ModuleRequestHandle&lt;UUID, Integer&gt; level = ModuleRequestHandle.of("Levels", LEVEL);
+ * ...
+ * Integer value = level.request(player.getUniqueId());
+ * </pre>
+ *
+ * @param <T> argument type
+ * @param <R> response type
+ */
+public final class ModuleRequestHandle<T, R> {
+
+    @Getter
+    private final String addonName;
+    @Getter
+    private final ModuleRequestKey<T, R> key;
+
+    private volatile Resolved<T, R> resolved;
+
+    /**
+     * Resolved target of the handle
+     * @param module addon serving the request
+     * @param handler request handler
+     * @param registryVersion version of the module registry at resolution time
+     * @param handlersVersion version of the handlers of the addon at resolution time
+     */
+    private record Resolved<T, R>(Module module, TypedRequestHandler<T, R> handler, long registryVersion,
+                                  int handlersVersion) {
+    }
+
+    private ModuleRequestHandle(@NonNull String addonName, @NonNull ModuleRequestKey<T, R> key) {
+        this.addonName = addonName;
+        this.key = key;
+    }
+
+    /**
+     * Creates a handle for the given addon and request key
+     *
+     * @param addonName addon name
+     * @param key request key
+     * @return request handle
+     */
+    @NonNull
+    public static <T, R> ModuleRequestHandle<T, R> of(@NonNull String addonName, @NonNull ModuleRequestKey<T, R> key) {
+        return new ModuleRequestHandle<>(addonName, key);
+    }
+
+    /**
+     * Send request to addon.
+     *
+     * @param argument request argument
+     * @return request response, null if the addon or the handler is not available.
+     */
+    @Nullable
+    public R request(T argument) {
+        Resolved<T, R> target = resolve();
+        return target == null ? null : target.handler().handle(argument);
+    }
+
+    /**
+     * Send many requests to the addon at once.
+     *
+     * @param arguments request arguments
+     * @return request responses in the same order, empty if the addon or the handler is not available.
+     */
+    @NonNull
+    public List<R> requestBatch(@NonNull List<T> arguments) {
+        Resolved<T, R> target = resolve();
+        return target == null ? Collections.emptyList() : target.handler().handleBatch(arguments);
+    }
+
+    /**
+     * Send request to addon on the request executor.
+     *
+     * @param argument request argument
+     * @return future of the response, completed with null if the addon or the handler is not available.
+     */
+    @NonNull
+    public CompletableFuture<R> requestAsync(T argument) {
+        return GManager.getModuleManager().getRequestExecutor().supply(() -> request(argument));
+    }
+
+    /**
+     * Send request to addon on the given executor.
+     *
+     * @param argument request argument
+     * @param executor executor running the handler
+     * @return future of the response, completed with null if the addon or the handler is not available.
+     */
+    @NonNull
+    public CompletableFuture<R> requestAsync(T argument, @NonNull Executor executor) {
+        return CompletableFuture.supplyAsync(() -> request(argument), executor);
+    }
+
+    /**
+     * Send many requests to the addon at once on the request executor.
+     *
+     * @param arguments request arguments
+     * @return future of the responses in the same order
+     */
+    @NonNull
+    public CompletableFuture<List<R>> requestBatchAsync(@NonNull List<T> arguments) {
+        return GManager.getModuleManager().getRequestExecutor().supply(() -> requestBatch(arguments));
+    }
+
+    /**
+     * @return true if the addon is present and serves the request
+     */
+    public boolean isAvailable() {
+        return resolve() != null;
+    }
+
+    /**
+     * @return the addon serving the request or null if not available
+     */
+    @Nullable
+    public Module getModule() {
+        Resolved<T, R> target = resolve();
+        return target == null ? null : target.module();
+    }
+
+    /**
+     * @return the current handler or null if not available
+     */
+    @Nullable
+    public TypedRequestHandler<T, R> getHandler() {
+        Resolved<T, R> target = resolve();
+        return target == null ? null : target.handler();
+    }
+
+    /**
+     * Gets the current target, resolving it again if anything changed since the last call.
+     *
+     * @return target or null if not available
+     */
+    @Nullable
+    private Resolved<T, R> resolve() {
+        long registryVersion = GManager.getModuleManager().getRegistry().getVersion();
+        Resolved<T, R> current = resolved;
+        if (current != null && current.registryVersion() == registryVersion
+                && current.handlersVersion() == current.module().getRequestHandlersVersion()) {
+            return current;
+        }
+        Module module = GManager.getModuleManager().getRegistry().getByName(addonName);
+        if (module == null) {
+            resolved = null;
+            return null;
+        }
+        // The version is read before the lookup, so a concurrent registration resolves again next time
+        int handlersVersion = module.getRequestHandlersVersion();
+        TypedRequestHandler<T, R> handler = module.getRequestHandler(key);
+        Resolved<T, R> target = handler == null ? null : new Resolved<>(module, handler, registryVersion, handlersVersion);
+        resolved = target;
+        return target;
+    }
+}
@@ -1,5 +1,7 @@
 package xyz.geik.gmanager.api.modules.requests;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -29,4 +31,30 @@ public abstract class ModuleRequestHandler {
      * @return request response
      */
     public abstract Object handle(Map<String, Object> metaData);
+
+    /**
+     * Override it to cache the responses of this handler.
+     * Cached responses are invalidated through {@link xyz.geik.gmanager.modules.Module#invalidateRequestCache(String)}
+     * or by calling a {@link xyz.geik.gmanager.modules.events.ModuleRequestInvalidateEvent}.
+     *
+     * @return cache policy, null to not cache the responses
+     */
+    public RequestCachePolicy getCachePolicy() {
+        return null;
+    }
+
+    /**
+     * Handle many addon requests at once.
+     * Override it to serve the whole batch with a single round-trip, for example one database query.
+     * By default, every meta data is handled one by one.
+     *
+     * @param metaData meta data of the requests
+     * @return request responses in the same order as the meta data
+     */
+    public List<Object> handleBatch(List<Map<String, Object>> metaData) {
+        List<Object> responses = new ArrayList<>(metaData.size());
+        for (Map<String, Object> data : metaData)
+            responses.add(handle(data));
+        return responses;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package xyz.geik.gmanager.api.modules.requests;
+
+import lombok.NonNull;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Typed label of a module request.
+ * Keys are meant to be created once and kept in a constant, the label is
+ * normalized at creation time so nothing is done with it per request.
+ *
+ * @param label lower-cased request label
+ * @param argumentType type of the request argument
+ * @param resultType type of the response
+ * @param <T> argument type
+ * @param <R> response type
+ */
+public record ModuleRequestKey<T, R>(@NonNull String label, @NonNull Class<T> argumentType,
+                                     @NonNull Class<R> resultType) {
+
+    /**
+     * Creates a typed request key
+     *
+     * @param label request label
+     * @param argumentType type of the request argument
+     * @param resultType type of the response
+     * @return request key
+     */
+    @NonNull
+    public static <T, R> ModuleRequestKey<T, R> of(@NonNull String label, @NonNull Class<T> argumentType,
+                                                   @NonNull Class<R> resultType) {
+        return new ModuleRequestKey<>(label.toLowerCase(Locale.ENGLISH), argumentType, resultType);
+    }
+
+    /**
+     * Key of a request served by a {@link ModuleRequestHandler}
+     *
+     * @param label request label
+     * @return request key taking the meta data map
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static ModuleRequestKey<Map<String, Object>, Object> legacy(@NonNull String label) {
+        return of(label, (Class<Map<String, Object>>) (Class<?>) Map.class, Object.class);
+    }
+
+    /**
+     * Checks if a handler registered with this key can serve the other key
+     *
+     * @param other requested key
+     * @return true if the argument and the response types are compatible
+     */
+    public boolean accepts(@NonNull ModuleRequestKey<?, ?> other) {
+        return label.equals(other.label())
+                && argumentType.isAssignableFrom(other.argumentType())
+                && other.resultType().isAssignableFrom(resultType);
+    }
+}
@@ -0,0 +1,74 @@
+package xyz.geik.gmanager.api.modules.requests;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Declares that the responses of a {@link ModuleRequestHandler} can be cached.
+ * Return it from {@link ModuleRequestHandler#getCachePolicy()} to opt in.
+ */
+@Getter
+public final class RequestCachePolicy {
+
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Function<Map<String, Object>, Object> keyFunction;
+
+    private RequestCachePolicy(@NonNull Duration ttl, int maxSize,
+                               @NonNull Function<Map<String, Object>, Object> keyFunction) {
+        if (ttl.isNegative() || ttl.isZero())
+            throw new IllegalArgumentException("Cache ttl must be positive");
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Cache size must be positive");
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Caches responses by a key derived from the meta data
+     *
+     * @param ttl time a response stays valid
+     * @param maxSize maximum amount of cached responses
+     * @param keyFunction creates the cache key from the meta data, a null key skips the cache
+     * @return cache policy
+     */
+    @NonNull
+    public static RequestCachePolicy of(@NonNull Duration ttl, int maxSize,
+                                        @NonNull Function<Map<String, Object>, Object> keyFunction) {
+        return new RequestCachePolicy(ttl, maxSize, keyFunction);
+    }
+
+    /**
+     * Caches responses by the value of a single meta data entry, for example the player uuid
+     *
+     * @param ttl time a response stays valid
+     * @param maxSize maximum amount of cached responses
+     * @param metaDataKey meta data entry used as the cache key
+     * @return cache policy
+     */
+    @NonNull
+    public static RequestCachePolicy byMetaData(@NonNull Duration ttl, int maxSize, @NonNull String metaDataKey) {
+        return new RequestCachePolicy(ttl, maxSize, metaData -> metaData == null ? null : metaData.get(metaDataKey));
+    }
+
+    /**
+     * Caches responses by the whole meta data map
+     *
+     * @param ttl time a response stays valid
+     * @param maxSize maximum amount of cached responses
+     * @return cache policy
+     */
+    @NonNull
+    public static RequestCachePolicy byMetaData(@NonNull Duration ttl, int maxSize) {
+        return new RequestCachePolicy(ttl, maxSize, metaData -> metaData == null ? Map.of()
+                // Meta data may hold null values, Map.copyOf rejects them
+                : Collections.unmodifiableMap(new HashMap<>(metaData)));
+    }
+}
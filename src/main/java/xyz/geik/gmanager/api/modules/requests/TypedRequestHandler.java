@@ -0,0 +1,38 @@
+package xyz.geik.gmanager.api.modules.requests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handler of a typed module request.
+ * Registered with {@link xyz.geik.gmanager.modules.Module#registerRequestHandler(ModuleRequestKey, TypedRequestHandler)}
+ * and invoked through a {@link ModuleRequestHandle}.
+ *
+ * @param <T> argument type
+ * @param <R> response type
+ */
+@FunctionalInterface
+public interface TypedRequestHandler<T, R> {
+
+    /**
+     * Handle an addon request.
+     *
+     * @param argument request argument
+     * @return request response
+     */
+    R handle(T argument);
+
+    /**
+     * Handle many addon requests at once.
+     * Override it to serve the whole batch with a single round-trip, for example one database query.
+     *
+     * @param arguments request arguments
+     * @return request responses in the same order as the arguments
+     */
+    default List<R> handleBatch(List<T> arguments) {
+        List<R> responses = new ArrayList<>(arguments.size());
+        for (T argument : arguments)
+            responses.add(handle(argument));
+        return responses;
+    }
+}
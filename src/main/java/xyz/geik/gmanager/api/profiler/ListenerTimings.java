@@ -0,0 +1,215 @@
+package xyz.geik.gmanager.api.profiler;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginLoader;
+import org.bukkit.plugin.RegisteredListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registers module listeners through timed executors and keeps their cost per module and event type.
+ * <br/>
+ * Every handler call costs two {@link System#nanoTime()} calls and a few atomic
+ * additions, so the timings can stay on in production. Percentiles are computed
+ * on demand from the last {@value #SAMPLES} calls.
+ */
+public class ListenerTimings {
+
+    /**
+     * Size of the rolling sample window, a power of two
+     */
+    private static final int SAMPLES = 1024;
+
+    /**
+     * Stats by module name, then by event class name
+     */
+    private final Map<String, Map<String, EventStats>> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Cost of the handlers of a module for a single event type
+     */
+    public static final class EventStats {
+        @Getter
+        private final String module;
+        @Getter
+        private final String event;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+        private final AtomicLong cursor = new AtomicLong();
+
+        private EventStats(String module, String event) {
+            this.module = module;
+            this.event = event;
+        }
+
+        private void record(long nanos) {
+            invocations.increment();
+            totalNanos.add(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // Retry.
+            }
+            samples.lazySet((int) (cursor.getAndIncrement() & (SAMPLES - 1)), nanos);
+        }
+
+        /**
+         * @return handler calls
+         */
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        /**
+         * @return nanoseconds spent in the handlers
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return longest handler call in nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * @return average handler call in nanoseconds
+         */
+        public long getAverageNanos() {
+            long count = getInvocations();
+            return count == 0 ? 0 : getTotalNanos() / count;
+        }
+
+        /**
+         * @return 99th percentile of the recent handler calls in nanoseconds
+         */
+        public long getP99Nanos() {
+            int size = (int) Math.min(cursor.get(), SAMPLES);
+            if (size == 0)
+                return 0;
+            long[] values = new long[size];
+            for (int i = 0; i < size; i++)
+                values[i] = samples.get(i);
+            Arrays.sort(values);
+            return values[Math.max(0, (int) Math.ceil(size * 0.99) - 1)];
+        }
+    }
+
+    /**
+     * Listener calling the original one and recording how long it took
+     */
+    private static final class TimedListener extends RegisteredListener {
+        private final RegisteredListener delegate;
+        private final EventStats stats;
+
+        private TimedListener(RegisteredListener delegate, EventStats stats) {
+            super(delegate.getListener(), (listener, event) -> {}, delegate.getPriority(), delegate.getPlugin(),
+                    delegate.isIgnoringCancelled());
+            this.delegate = delegate;
+            this.stats = stats;
+        }
+
+        @Override
+        public void callEvent(@NotNull Event event) throws EventException {
+            long start = System.nanoTime();
+            try {
+                delegate.callEvent(event);
+            } finally {
+                stats.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Registers the handlers of a listener, each one timed under the module
+     *
+     * @param module module name
+     * @param listener listener
+     * @param plugin plugin owning the handlers
+     * @param pluginLoader loader creating the handler executors
+     */
+    public void register(@NonNull String module, @NonNull Listener listener, @NonNull Plugin plugin,
+                         @NonNull PluginLoader pluginLoader) {
+        Map<String, EventStats> moduleStats = stats.computeIfAbsent(module, k -> new ConcurrentHashMap<>());
+        pluginLoader.createRegisteredListeners(listener, plugin).forEach((type, handlers) -> {
+            EventStats eventStats = moduleStats.computeIfAbsent(type.getName(),
+                    name -> new EventStats(module, type.getSimpleName()));
+            HandlerList handlerList = getHandlerList(type);
+            handlers.forEach(handler -> handlerList.register(new TimedListener(handler, eventStats)));
+        });
+    }
+
+    /**
+     * Forgets the stats of a module
+     * @param module module name
+     */
+    public void remove(@NonNull String module) {
+        stats.remove(module);
+    }
+
+    /**
+     * Forgets every stat
+     */
+    public void clear() {
+        stats.clear();
+    }
+
+    /**
+     * @param module module name
+     * @return stats of the module, most expensive first
+     */
+    @NonNull
+    public List<EventStats> getStats(@NonNull String module) {
+        List<EventStats> list = new ArrayList<>(stats.getOrDefault(module, Collections.emptyMap()).values());
+        list.sort(Comparator.comparingLong(EventStats::getTotalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * @return stats of every module, most expensive first
+     */
+    @NonNull
+    public List<EventStats> getStats() {
+        List<EventStats> list = new ArrayList<>();
+        stats.values().forEach(moduleStats -> list.addAll(moduleStats.values()));
+        list.sort(Comparator.comparingLong(EventStats::getTotalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * Finds the handler list of an event type the same way Bukkit does
+     */
+    private static HandlerList getHandlerList(Class<? extends Event> type) {
+        Class<?> clazz = type;
+        while (clazz != null && Event.class.isAssignableFrom(clazz)) {
+            try {
+                Method method = clazz.getDeclaredMethod("getHandlerList");
+                method.setAccessible(true);
+                return (HandlerList) method.invoke(null);
+            } catch (NoSuchMethodException e) {
+                clazz = clazz.getSuperclass();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalPluginAccessException("Unable to get the handler list of " + type.getName()
+                        + ": " + e.getMessage());
+            }
+        }
+        throw new IllegalPluginAccessException("Unable to find handler list for event " + type.getName()
+                + ". Static getHandlerList method required!");
+    }
+}
@@ -0,0 +1,207 @@
+package xyz.geik.gmanager.api.profiler;
+
+import com.google.gson.GsonBuilder;
+import lombok.Getter;
+import lombok.NonNull;
+import xyz.geik.gmanager.GManager;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the time and the allocated memory spent on each lifecycle phase of the modules.
+ * <br/>
+ * Recording is cheap and allocation free, a phase is measured with
+ * {@link System#nanoTime()} and {@link #allocatedBytes()} before it runs and
+ * {@link #record(String, Phase, long, long)} after it. Allocations are counted
+ * on the measuring thread only.
+ */
+public class ModuleProfiler {
+
+    /**
+     * Measured lifecycle phases
+     */
+    public enum Phase {
+        JAR_OPEN, DESCRIPTION_PARSE, INDEX_LOOKUP, CLASS_LOAD, ON_LOAD, ON_ENABLE, ALL_LOADED, PERMISSIONS, DISABLE
+    }
+
+    @Nullable
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Counters of a single module
+     */
+    public static final class Profile {
+        @Getter
+        private final String name;
+        private final AtomicLongArray counts = new AtomicLongArray(Phase.values().length);
+        private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+        private final AtomicLongArray bytes = new AtomicLongArray(Phase.values().length);
+
+        private Profile(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param phase phase
+         * @return how many times the phase was recorded
+         */
+        public long getCount(@NonNull Phase phase) {
+            return counts.get(phase.ordinal());
+        }
+
+        /**
+         * @param phase phase
+         * @return nanoseconds spent on the phase
+         */
+        public long getNanos(@NonNull Phase phase) {
+            return nanos.get(phase.ordinal());
+        }
+
+        /**
+         * @param phase phase
+         * @return bytes allocated during the phase, 0 if the JVM can't tell
+         */
+        public long getBytes(@NonNull Phase phase) {
+            return bytes.get(phase.ordinal());
+        }
+
+        /**
+         * @return nanoseconds spent on every phase
+         */
+        public long getTotalNanos() {
+            long total = 0;
+            for (int i = 0; i < nanos.length(); i++)
+                total += nanos.get(i);
+            return total;
+        }
+
+        /**
+         * @return bytes allocated during every phase
+         */
+        public long getTotalBytes() {
+            long total = 0;
+            for (int i = 0; i < bytes.length(); i++)
+                total += bytes.get(i);
+            return total;
+        }
+    }
+
+    /**
+     * Records a phase which started at the given counters
+     *
+     * @param module module name
+     * @param phase phase
+     * @param startNanos {@link System#nanoTime()} when the phase started
+     * @param startBytes {@link #allocatedBytes()} when the phase started
+     */
+    public void record(@NonNull String module, @NonNull Phase phase, long startNanos, long startBytes) {
+        add(module, phase, System.nanoTime() - startNanos, startBytes < 0 ? -1 : allocatedBytes() - startBytes);
+    }
+
+    /**
+     * Records an already measured phase
+     *
+     * @param module module name
+     * @param phase phase
+     * @param nanos time spent on the phase
+     * @param bytes bytes allocated during the phase, negative if unknown
+     */
+    public void add(@NonNull String module, @NonNull Phase phase, long nanos, long bytes) {
+        Profile profile = profiles.computeIfAbsent(module, Profile::new);
+        profile.counts.incrementAndGet(phase.ordinal());
+        profile.nanos.addAndGet(phase.ordinal(), nanos);
+        profile.bytes.addAndGet(phase.ordinal(), Math.max(0, bytes));
+    }
+
+    /**
+     * Forgets the counters of a module, called when a new lifecycle of it starts
+     * @param module module name
+     */
+    public void reset(@NonNull String module) {
+        profiles.remove(module);
+    }
+
+    /**
+     * @param module module name
+     * @return counters of the module or null
+     */
+    @Nullable
+    public Profile getProfile(@NonNull String module) {
+        return profiles.get(module);
+    }
+
+    /**
+     * @return counters of every module, slowest first
+     */
+    @NonNull
+    public List<Profile> getProfiles() {
+        List<Profile> list = new ArrayList<>(profiles.values());
+        list.sort(Comparator.comparingLong(Profile::getTotalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * Writes the counters as json
+     * @param file target file
+     * @throws IOException if the file can't be written
+     */
+    public void save(@NonNull File file) throws IOException {
+        List<Map<String, Object>> modules = new ArrayList<>();
+        for (Profile profile : getProfiles()) {
+            Map<String, Object> phases = new LinkedHashMap<>();
+            for (Phase phase : Phase.values()) {
+                if (profile.getCount(phase) == 0)
+                    continue;
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("count", profile.getCount(phase));
+                values.put("nanos", profile.getNanos(phase));
+                values.put("allocatedBytes", profile.getBytes(phase));
+                phases.put(phase.name(), values);
+            }
+            Map<String, Object> module = new LinkedHashMap<>();
+            module.put("name", profile.getName());
+            module.put("totalNanos", profile.getTotalNanos());
+            module.put("totalAllocatedBytes", profile.getTotalBytes());
+            module.put("phases", phases);
+            modules.add(module);
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("generated", Instant.now().toString());
+        root.put("allocationsSupported", THREAD_BEAN != null);
+        root.put("modules", modules);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(root, writer);
+        }
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, -1 if the JVM can't tell
+     */
+    public static long allocatedBytes() {
+        return THREAD_BEAN == null ? -1 : THREAD_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                if (!bean.isThreadAllocatedMemoryEnabled())
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        } catch (Exception | LinkageError e) {
+            GManager.getInstance().logWarning("Allocation counters are not available: " + e.getMessage());
+        }
+        return null;
+    }
+}
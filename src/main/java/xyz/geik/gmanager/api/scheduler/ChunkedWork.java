@@ -0,0 +1,15 @@
+package xyz.geik.gmanager.api.scheduler;
+
+/**
+ * Long running main thread work split into small steps, see {@link WorkQueue}
+ */
+@FunctionalInterface
+public interface ChunkedWork {
+
+    /**
+     * Runs the next small unit of work, it should take well under a millisecond
+     *
+     * @return true if there is more work left
+     */
+    boolean step();
+}
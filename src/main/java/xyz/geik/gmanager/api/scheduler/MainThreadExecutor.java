@@ -0,0 +1,123 @@
+package xyz.geik.gmanager.api.scheduler;
+
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import xyz.geik.gmanager.GManager;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs tasks on the server main thread.
+ * <br/>
+ * Tasks of other threads are queued and the queue is drained by a Bukkit task.
+ * While the main thread is blocked waiting for work of other threads (for example
+ * concurrent addon startup), the scheduler doesn't tick, so the main thread drains
+ * the queue itself through {@link #pumpUntil(Future, long)} and those threads can
+ * still call into Bukkit without a deadlock.
+ */
+public class MainThreadExecutor implements Executor {
+
+    private final Plugin plugin;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * True while a drain task is scheduled and didn't start yet
+     */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    public MainThreadExecutor(@NonNull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Runs the task on the main thread, directly if already on it
+     *
+     * @param task task
+     */
+    @Override
+    public void execute(@NonNull Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+            return;
+        }
+        queue.add(task);
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                Bukkit.getScheduler().runTask(plugin, this::drain);
+            } catch (IllegalStateException e) {
+                // The plugin is being disabled, a pumping main thread may still run the task
+                drainScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Calls the task on the main thread and waits for its result
+     *
+     * @param task task
+     * @return result of the task
+     * @throws CompletionException if the task fails
+     */
+    public <T> T call(@NonNull Callable<T> task) {
+        if (Bukkit.isPrimaryThread()) {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future.join();
+    }
+
+    /**
+     * Runs queued tasks on the current (main) thread until the future is done or the timeout elapsed.
+     * Tasks queued before the call are run too, even if a drain task was already scheduled for them.
+     *
+     * @param future awaited work
+     * @param timeoutNanos longest time to wait
+     * @return true if the future is done
+     */
+    public boolean pumpUntil(@NonNull Future<?> future, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (!future.isDone() && System.nanoTime() - deadline < 0 && !Thread.currentThread().isInterrupted()) {
+            if (!runQueued())
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        runQueued();
+        return future.isDone();
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        runQueued();
+    }
+
+    /**
+     * @return true if a task was run
+     */
+    private boolean runQueued() {
+        boolean ran = false;
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            ran = true;
+            try {
+                task.run();
+            } catch (Throwable e) {
+                GManager.getInstance().logError("Main thread task generated an exception");
+                GManager.getInstance().logStacktrace(e);
+            }
+        }
+        return ran;
+    }
+}
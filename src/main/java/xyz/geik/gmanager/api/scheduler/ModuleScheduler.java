@@ -0,0 +1,328 @@
+package xyz.geik.gmanager.api.scheduler;
+
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import xyz.geik.gmanager.GManager;
+import xyz.geik.gmanager.api.modules.requests.ModuleRequestExecutor;
+import xyz.geik.gmanager.modules.Module;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Scheduler of a single module.
+ * <br/>
+ * Tasks run under the GManager plugin but their run time is accounted to the
+ * module, and all of them are cancelled when the module is disabled or reloaded.
+ * Main thread tasks share a per tick budget: once the module used it up, its
+ * other tasks wait for the next tick (repeating ones skip a run).
+ * Large main thread sweeps go through {@link #submitWork(WorkQueue.Priority, ChunkedWork)}.
+ */
+public class ModuleScheduler {
+
+    private final Module module;
+    private final Plugin plugin;
+    private final TickClock clock;
+    private final WorkQueue workQueue;
+    private final Set<ModuleTask> tasks = ConcurrentHashMap.newKeySet();
+    private final Set<WorkJob> jobs = ConcurrentHashMap.newKeySet();
+    private final LongAdder mainThreadNanos = new LongAdder();
+    private final LongAdder asyncNanos = new LongAdder();
+    private final LongAdder deferredRuns = new LongAdder();
+    private volatile long tickBudgetNanos;
+    private volatile ExecutorService virtualExecutor;
+    private volatile boolean shutdown;
+
+    /**
+     * Tick the {@link #tickNanos} belong to, both only touched on the main thread
+     */
+    private long tick = -1;
+    private long tickNanos;
+
+    public ModuleScheduler(@NonNull Module module, @NonNull Plugin plugin, @NonNull TickClock clock,
+                           @NonNull WorkQueue workQueue, long tickBudgetNanos) {
+        this.module = module;
+        this.plugin = plugin;
+        this.clock = clock;
+        this.workQueue = workQueue;
+        this.tickBudgetNanos = tickBudgetNanos;
+    }
+
+    /**
+     * Runs the task on the main thread on the next tick
+     * @param task task
+     * @return scheduled task
+     */
+    @NonNull
+    public ModuleTask runTask(@NonNull Runnable task) {
+        return runTaskLater(task, 0L);
+    }
+
+    /**
+     * Runs the task on the main thread after the delay
+     * @param task task
+     * @param delay delay in ticks
+     * @return scheduled task
+     */
+    @NonNull
+    public ModuleTask runTaskLater(@NonNull Runnable task, long delay) {
+        ModuleTask moduleTask = register(new ModuleTask(this, task, true, false));
+        moduleTask.setBukkitTask(Bukkit.getScheduler().runTaskLater(plugin, moduleTask::run, delay));
+        return moduleTask;
+    }
+
+    /**
+     * Runs the task on the main thread repeatedly
+     * @param task task
+     * @param delay delay before the first run in ticks
+     * @param period period in ticks
+     * @return scheduled task
+     */
+    @NonNull
+    public ModuleTask runTaskTimer(@NonNull Runnable task, long delay, long period) {
+        ModuleTask moduleTask = register(new ModuleTask(this, task, true, true));
+        moduleTask.setBukkitTask(Bukkit.getScheduler().runTaskTimer(plugin, moduleTask::run, delay, period));
+        return moduleTask;
+    }
+
+    /**
+     * Runs the task on the Bukkit async pool
+     * @param task task
+     * @return scheduled task
+     */
+    @NonNull
+    public ModuleTask runTaskAsynchronously(@NonNull Runnable task) {
+        return runTaskLaterAsynchronously(task, 0L);
+    }
+
+    /**
+     * Runs the task on the Bukkit async pool after the delay
+     * @param task task
+     * @param delay delay in ticks
+     * @return scheduled task
+     */
+    @NonNull
+    public ModuleTask runTaskLaterAsynchronously(@NonNull Runnable task, long delay) {
+        ModuleTask moduleTask = register(new ModuleTask(this, task, false, false));
+        moduleTask.setBukkitTask(Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, moduleTask::run, delay));
+        return moduleTask;
+    }
+
+    /**
+     * Runs the task on the Bukkit async pool repeatedly
+     * @param task task
+     * @param delay delay before the first run in ticks
+     * @param period period in ticks
+     * @return scheduled task
+     */
+    @NonNull
+    public ModuleTask runTaskTimerAsynchronously(@NonNull Runnable task, long delay, long period) {
+        ModuleTask moduleTask = register(new ModuleTask(this, task, false, true));
+        moduleTask.setBukkitTask(Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, moduleTask::run, delay,
+                period));
+        return moduleTask;
+    }
+
+    /**
+     * Runs the task on a virtual thread, meant for blocking work such as database calls.
+     * Falls back to the Bukkit async pool on runtimes older than Java 21.
+     * @param task task
+     * @return scheduled task
+     */
+    @NonNull
+    public ModuleTask runVirtual(@NonNull Runnable task) {
+        ExecutorService executor = getVirtualExecutor();
+        if (executor == null)
+            return runTaskAsynchronously(task);
+        ModuleTask moduleTask = register(new ModuleTask(this, task, false, false));
+        try {
+            moduleTask.setFuture(executor.submit(moduleTask::run));
+        } catch (RejectedExecutionException e) {
+            moduleTask.cancel();
+        }
+        return moduleTask;
+    }
+
+    /**
+     * Runs the work on the main thread in small steps spread over several ticks,
+     * so a large sweep doesn't cause a lag spike
+     * @param priority priority of the work
+     * @param work work
+     * @return job of the work
+     */
+    @NonNull
+    public WorkJob submitWork(@NonNull WorkQueue.Priority priority, @NonNull ChunkedWork work) {
+        if (shutdown)
+            throw new IllegalStateException(module.getDescription().getName() + " is disabled, it can't submit work");
+        WorkJob job = workQueue.submit(module, priority, work);
+        jobs.add(job);
+        job.getCompletion().whenComplete((result, error) -> jobs.remove(job));
+        return job;
+    }
+
+    /**
+     * Runs the action for each element on the main thread, spread over several ticks
+     * @param priority priority of the work
+     * @param elements elements, iterated on the main thread
+     * @param action action run for each element
+     * @return job of the work
+     */
+    @NonNull
+    public <T> WorkJob submitWork(@NonNull WorkQueue.Priority priority, @NonNull Iterable<T> elements,
+                                  @NonNull Consumer<T> action) {
+        return submitWork(priority, new ChunkedWork() {
+            private Iterator<T> iterator;
+
+            @Override
+            public boolean step() {
+                if (iterator == null)
+                    iterator = elements.iterator();
+                if (iterator.hasNext())
+                    action.accept(iterator.next());
+                return iterator.hasNext();
+            }
+        });
+    }
+
+    /**
+     * Cancels every task, running virtual tasks are interrupted.
+     * Called by GManager when the module is disabled.
+     */
+    public void cancelAll() {
+        shutdown = true;
+        tasks.forEach(ModuleTask::cancel);
+        tasks.clear();
+        jobs.forEach(WorkJob::cancel);
+        jobs.clear();
+        ExecutorService executor = virtualExecutor;
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Sets how long the main thread tasks of the module may run per tick
+     * @param millis budget in milliseconds, 0 for no budget
+     */
+    public void setTickBudgetMillis(double millis) {
+        tickBudgetNanos = (long) (millis * 1_000_000D);
+    }
+
+    /**
+     * @return main thread budget per tick in nanoseconds, 0 if there is none
+     */
+    public long getTickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    /**
+     * @return nanoseconds the module spent on the main thread in the current tick
+     */
+    public long getTickNanos() {
+        return tick == clock.getTick() ? tickNanos : 0L;
+    }
+
+    /**
+     * @return nanoseconds spent by the main thread tasks
+     */
+    public long getMainThreadNanos() {
+        return mainThreadNanos.sum();
+    }
+
+    /**
+     * @return nanoseconds spent by the async and virtual tasks
+     */
+    public long getAsyncNanos() {
+        return asyncNanos.sum();
+    }
+
+    /**
+     * @return runs postponed because the module was over its tick budget
+     */
+    public long getDeferredRuns() {
+        return deferredRuns.sum();
+    }
+
+    /**
+     * @return tasks which are scheduled or repeating
+     */
+    @NonNull
+    public Set<ModuleTask> getTasks() {
+        return Collections.unmodifiableSet(tasks);
+    }
+
+    /**
+     * @return true if the module used up its main thread budget in the current tick
+     */
+    public boolean isOverBudget() {
+        long budget = tickBudgetNanos;
+        return budget > 0 && getTickNanos() >= budget;
+    }
+
+    /**
+     * Accounts main thread time spent on behalf of the module outside of its tasks
+     * @param nanos spent nanoseconds
+     */
+    public void addMainThreadNanos(long nanos) {
+        mainThreadNanos.add(nanos);
+        long now = clock.getTick();
+        if (tick != now) {
+            tick = now;
+            tickNanos = 0L;
+        }
+        tickNanos += nanos;
+    }
+
+    private ModuleTask register(ModuleTask task) {
+        if (shutdown)
+            throw new IllegalStateException(module.getDescription().getName() + " is disabled, it can't schedule tasks");
+        tasks.add(task);
+        return task;
+    }
+
+    private ExecutorService getVirtualExecutor() {
+        ExecutorService executor = virtualExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = virtualExecutor;
+                if (executor == null && !shutdown) {
+                    executor = ModuleRequestExecutor.newVirtualThreadExecutor();
+                    virtualExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    void defer(ModuleTask task) {
+        task.setBukkitTask(Bukkit.getScheduler().runTask(plugin, task::run));
+    }
+
+    void deferred() {
+        deferredRuns.increment();
+    }
+
+    void completed(ModuleTask task, long nanos) {
+        if (task.isSync())
+            addMainThreadNanos(nanos);
+        else
+            asyncNanos.add(nanos);
+        if (!task.isRepeating())
+            tasks.remove(task);
+    }
+
+    void removed(ModuleTask task) {
+        tasks.remove(task);
+    }
+
+    void failed(Throwable throwable) {
+        GManager.getInstance().logError("Task of " + module.getDescription().getName() + " generated an exception");
+        GManager.getInstance().logStacktrace(throwable);
+    }
+}
@@ -0,0 +1,112 @@
+package xyz.geik.gmanager.api.scheduler;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Task scheduled through a {@link ModuleScheduler}
+ */
+public class ModuleTask {
+
+    private final ModuleScheduler scheduler;
+    private final Runnable task;
+    /**
+     * True if the task runs on the main thread
+     */
+    @Getter
+    private final boolean sync;
+    /**
+     * True if the task runs until it is cancelled
+     */
+    @Getter
+    private final boolean repeating;
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private volatile BukkitTask bukkitTask;
+    private volatile Future<?> future;
+    private volatile boolean cancelled;
+
+    ModuleTask(@NonNull ModuleScheduler scheduler, @NonNull Runnable task, boolean sync, boolean repeating) {
+        this.scheduler = scheduler;
+        this.task = task;
+        this.sync = sync;
+        this.repeating = repeating;
+    }
+
+    void setBukkitTask(@NonNull BukkitTask bukkitTask) {
+        this.bukkitTask = bukkitTask;
+        if (cancelled)
+            bukkitTask.cancel();
+    }
+
+    void setFuture(@NonNull Future<?> future) {
+        this.future = future;
+        if (cancelled)
+            future.cancel(true);
+    }
+
+    /**
+     * Runs the task once, main thread tasks wait for the next tick if their module is over its budget
+     */
+    void run() {
+        if (cancelled)
+            return;
+        if (sync && scheduler.isOverBudget()) {
+            scheduler.deferred();
+            // A repeating task simply skips this run
+            if (!repeating)
+                scheduler.defer(this);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (Throwable e) {
+            scheduler.failed(e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            runs.increment();
+            nanos.add(elapsed);
+            scheduler.completed(this, elapsed);
+        }
+    }
+
+    /**
+     * Cancels the task, a running task is interrupted only if it runs on a virtual thread
+     */
+    public void cancel() {
+        cancelled = true;
+        BukkitTask current = bukkitTask;
+        if (current != null)
+            current.cancel();
+        Future<?> currentFuture = future;
+        if (currentFuture != null)
+            currentFuture.cancel(true);
+        scheduler.removed(this);
+    }
+
+    /**
+     * @return true if the task was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return how many times the task ran
+     */
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    /**
+     * @return nanoseconds spent running the task
+     */
+    public long getTotalNanos() {
+        return nanos.sum();
+    }
+}
@@ -0,0 +1,35 @@
+package xyz.geik.gmanager.api.scheduler;
+
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Counts server ticks, so per tick budgets can tell when a new tick started.
+ */
+public class TickClock {
+
+    private volatile long tick;
+    private volatile long tickStartNanos = System.nanoTime();
+
+    public TickClock(@NonNull Plugin plugin) {
+        Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            tickStartNanos = System.nanoTime();
+            tick++;
+        }, 0L, 1L);
+    }
+
+    /**
+     * @return ticks elapsed since GManager was enabled
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} when the current tick started, as seen by the scheduler
+     */
+    public long getTickStartNanos() {
+        return tickStartNanos;
+    }
+}
@@ -0,0 +1,101 @@
+package xyz.geik.gmanager.api.scheduler;
+
+import lombok.Getter;
+import lombok.NonNull;
+import xyz.geik.gmanager.GManager;
+import xyz.geik.gmanager.modules.Module;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Work submitted to the {@link WorkQueue}
+ */
+public class WorkJob {
+
+    @Getter
+    private final Module module;
+    @Getter
+    private final WorkQueue.Priority priority;
+    private final ChunkedWork work;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile long steps;
+    private volatile long nanos;
+    private volatile boolean cancelled;
+
+    WorkJob(@NonNull Module module, @NonNull WorkQueue.Priority priority, @NonNull ChunkedWork work) {
+        this.module = module;
+        this.priority = priority;
+        this.work = work;
+    }
+
+    /**
+     * Runs a step of the work, only called on the main thread
+     * @return true if there is more work left
+     */
+    boolean step() {
+        if (cancelled)
+            return false;
+        long start = System.nanoTime();
+        boolean more;
+        try {
+            more = work.step();
+        } catch (Throwable e) {
+            GManager.getInstance().logError("Work of " + module.getDescription().getName() + " generated an exception");
+            GManager.getInstance().logStacktrace(e);
+            completion.completeExceptionally(e);
+            return false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            steps++;
+            nanos += elapsed;
+            module.getScheduler().addMainThreadNanos(elapsed);
+        }
+        if (!more)
+            completion.complete(null);
+        return more;
+    }
+
+    /**
+     * @return future completed once the work is done, failed if a step threw
+     */
+    @NonNull
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Stops the work before its next step
+     */
+    public void cancel() {
+        cancelled = true;
+        completion.cancel(false);
+    }
+
+    /**
+     * @return true if the job was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if the work is done, failed or cancelled
+     */
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * @return steps run so far
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return nanoseconds spent on the steps so far
+     */
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,158 @@
+package xyz.geik.gmanager.api.scheduler;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import xyz.geik.gmanager.modules.Module;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Spreads long running main thread work of the modules over several ticks.
+ * <br/>
+ * Every tick the queue runs steps of the submitted {@link ChunkedWork} until
+ * the tick budget is used up. Modules take turns, each turn runs a few steps
+ * of the most important job of the module, more for higher priorities.
+ * Modules over their own {@link ModuleScheduler} budget sit out the tick.
+ */
+public class WorkQueue {
+
+    /**
+     * Priority of a job, the weight is the amount of steps it runs per turn
+     */
+    public enum Priority {
+        HIGH(4), NORMAL(2), LOW(1);
+
+        @Getter
+        private final int weight;
+
+        Priority(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Pending jobs of a single module, only touched on the main thread
+     */
+    private static final class ModuleWork {
+        private final Module module;
+        private final List<Deque<WorkJob>> jobs = new ArrayList<>();
+
+        private ModuleWork(Module module) {
+            this.module = module;
+            for (int i = 0; i < Priority.values().length; i++)
+                jobs.add(new ArrayDeque<>());
+        }
+
+        private WorkJob next() {
+            for (Deque<WorkJob> queue : jobs) {
+                WorkJob job;
+                while ((job = queue.peek()) != null && job.isDone())
+                    queue.poll();
+                if (job != null)
+                    return job;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Jobs submitted from any thread, moved to their module on the next tick
+     */
+    private final Queue<WorkJob> submitted = new ConcurrentLinkedQueue<>();
+    private final Map<Module, ModuleWork> work = new HashMap<>();
+    private final Deque<ModuleWork> turns = new ArrayDeque<>();
+    private volatile long budgetNanos;
+
+    /**
+     * @param plugin plugin running the queue
+     * @param budgetMillis main thread milliseconds the queue may use per tick, 0 runs a single step per tick
+     */
+    public WorkQueue(@NonNull Plugin plugin, double budgetMillis) {
+        setBudgetMillis(budgetMillis);
+        Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * Queues the work of a module
+     *
+     * @param module owner of the work
+     * @param priority priority of the work
+     * @param chunkedWork work
+     * @return job of the work
+     */
+    @NonNull
+    public WorkJob submit(@NonNull Module module, @NonNull Priority priority, @NonNull ChunkedWork chunkedWork) {
+        WorkJob job = new WorkJob(module, priority, chunkedWork);
+        submitted.add(job);
+        return job;
+    }
+
+    /**
+     * Sets how long the queue may run per tick, at least one step runs every tick
+     * @param millis budget in milliseconds, 0 runs a single step per tick
+     */
+    public void setBudgetMillis(double millis) {
+        budgetNanos = Math.max(0L, (long) (millis * 1_000_000D));
+    }
+
+    /**
+     * @return main thread budget per tick in nanoseconds
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Must be called on the main thread
+     * @return jobs which are waiting or running
+     */
+    public int getPendingJobs() {
+        int pending = submitted.size();
+        for (ModuleWork moduleWork : work.values())
+            for (Deque<WorkJob> queue : moduleWork.jobs)
+                pending += queue.size();
+        return pending;
+    }
+
+    private void tick() {
+        WorkJob job;
+        while ((job = submitted.poll()) != null) {
+            ModuleWork moduleWork = work.get(job.getModule());
+            if (moduleWork == null) {
+                moduleWork = new ModuleWork(job.getModule());
+                work.put(job.getModule(), moduleWork);
+                turns.add(moduleWork);
+            }
+            moduleWork.jobs.get(job.getPriority().ordinal()).add(job);
+        }
+        if (turns.isEmpty())
+            return;
+        long deadline = System.nanoTime() + budgetNanos;
+        List<ModuleWork> waiting = new ArrayList<>();
+        // A single step always runs, so the work goes on with a budget of 0 or one used up by the scheduling
+        boolean stepped = false;
+        while (!turns.isEmpty() && (!stepped || System.nanoTime() < deadline)) {
+            ModuleWork moduleWork = turns.poll();
+            WorkJob next = moduleWork.next();
+            if (next == null) {
+                work.remove(moduleWork.module);
+                continue;
+            }
+            if (moduleWork.module.getScheduler().isOverBudget()) {
+                waiting.add(moduleWork);
+                continue;
+            }
+            for (int i = 0; i < next.getPriority().getWeight() && (!stepped || System.nanoTime() < deadline); i++) {
+                stepped = true;
+                if (!next.step())
+                    break;
+            }
+            turns.add(moduleWork);
+        }
+        // Modules over their budget get their turn in the next tick
+        turns.addAll(waiting);
+    }
+}
@@ -0,0 +1,174 @@
+package xyz.geik.gmanager.api.watcher;
+
+import lombok.NonNull;
+import xyz.geik.gmanager.GManager;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Watches directories for file changes on a background thread.
+ * <br/>
+ * Changes are debounced per file: the listener is called once the file was left
+ * alone for the debounce delay, so a jar or a yaml which is still being copied
+ * is not picked up half written. Listeners are called on the watcher thread,
+ * hop to the main thread before touching Bukkit.
+ */
+public class FileWatcher implements AutoCloseable {
+
+    /**
+     * Watched directory with the files it is interested in
+     * @param filter accepted files
+     * @param listener called with the changed file, which may not exist anymore
+     */
+    private record Registration(Predicate<Path> filter, Consumer<Path> listener) {
+    }
+
+    private final String name;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final ScheduledExecutorService scheduler;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final Map<Path, List<Registration>> registrations = new ConcurrentHashMap<>();
+    private final Map<Path, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Creates and starts the watcher
+     * @param name name of the watcher thread
+     * @param debounceMillis quiet time a file needs before its listener is called
+     * @throws IOException if the file system can't be watched
+     */
+    public FileWatcher(@NonNull String name, long debounceMillis) throws IOException {
+        this.name = name;
+        this.debounceMillis = debounceMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread t = new Thread(task, name + "-Debounce");
+            t.setDaemon(true);
+            return t;
+        });
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Watches the files of a directory, sub directories are not included
+     * @param directory directory
+     * @param filter accepted files
+     * @param listener called with the changed file on the watcher thread
+     * @throws IOException if the directory can't be watched
+     */
+    public void watch(@NonNull Path directory, @NonNull Predicate<Path> filter, @NonNull Consumer<Path> listener)
+            throws IOException {
+        Path dir = directory.toAbsolutePath().normalize();
+        registrations.computeIfAbsent(dir, k -> new CopyOnWriteArrayList<>()).add(new Registration(filter, listener));
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, dir);
+    }
+
+    /**
+     * Stops watching a directory
+     * @param directory directory
+     */
+    public void unwatch(@NonNull Path directory) {
+        Path dir = directory.toAbsolutePath().normalize();
+        registrations.remove(dir);
+        directories.entrySet().removeIf(e -> {
+            if (!e.getValue().equals(dir))
+                return false;
+            e.getKey().cancel();
+            return true;
+        });
+    }
+
+    /**
+     * Stops the watcher, pending changes are dropped
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // Ignored.
+        }
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = directories.get(key);
+            if (dir != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                        rescan(dir);
+                    else
+                        schedule(dir.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset())
+                directories.remove(key);
+        }
+    }
+
+    /**
+     * Events were lost, every accepted file of the directory is treated as changed
+     */
+    private void rescan(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(this::schedule);
+        } catch (IOException e) {
+            GManager.getInstance().logWarning(name + " could not rescan " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void schedule(Path file) {
+        List<Registration> list = registrations.get(file.getParent());
+        if (list == null || list.stream().noneMatch(r -> r.filter().test(file)))
+            return;
+        // Every new event restarts the delay of the file
+        pending.compute(file, (path, previous) -> {
+            if (previous != null)
+                previous.cancel(false);
+            try {
+                return scheduler.schedule(() -> fire(path), debounceMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                return null;
+            }
+        });
+    }
+
+    private void fire(Path file) {
+        pending.remove(file);
+        List<Registration> list = registrations.get(file.getParent());
+        if (list == null)
+            return;
+        for (Registration registration : list) {
+            if (!registration.filter().test(file))
+                continue;
+            try {
+                registration.listener().accept(file);
+            } catch (Exception e) {
+                GManager.getInstance().logError(name + " failed to handle the change of " + file.getFileName());
+                GManager.getInstance().logStacktrace(e);
+            }
+        }
+    }
+}
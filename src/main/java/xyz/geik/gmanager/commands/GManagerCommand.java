@@ -0,0 +1,175 @@
+package xyz.geik.gmanager.commands;
+
+import org.bukkit.command.CommandSender;
+import xyz.geik.glib.chat.ChatUtils;
+import xyz.geik.glib.shades.triumphteam.cmd.bukkit.annotation.Permission;
+import xyz.geik.glib.shades.triumphteam.cmd.core.BaseCommand;
+import xyz.geik.glib.shades.triumphteam.cmd.core.annotation.Command;
+import xyz.geik.glib.shades.triumphteam.cmd.core.annotation.Optional;
+import xyz.geik.glib.shades.triumphteam.cmd.core.annotation.SubCommand;
+import xyz.geik.gmanager.GManager;
+import xyz.geik.gmanager.api.modules.LibraryManager;
+import xyz.geik.gmanager.api.profiler.ListenerTimings;
+import xyz.geik.gmanager.api.profiler.ModuleProfiler;
+import xyz.geik.gmanager.configuration.LangFile;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Main command of GManager
+ */
+@Command("gmanager")
+public class GManagerCommand extends BaseCommand {
+
+    /**
+     * Lines shown by the timings command
+     */
+    private static final int TIMINGS_LINES = 15;
+
+    /**
+     * Reloads every addon, or only the given one and its dependents
+     * @param sender command sender
+     * @param addon addon name, null for every addon
+     */
+    @SubCommand("reload")
+    @Permission("gmanager.admin")
+    public void reload(CommandSender sender, @Optional String addon) {
+        if (addon == null) {
+            GManager.getConfigService().reloadChanged();
+            GManager.getModuleManager().reloadAddons();
+            GManager.sendMessage(sender, LangFile.Messages::getConfigReloaded);
+            return;
+        }
+        if (GManager.getModuleManager().getAddonByName(addon).isEmpty()) {
+            GManager.sendMessage(sender, LangFile.Messages::getAddonNotFound, "addon", addon);
+            return;
+        }
+        sendResult(sender, addon, GManager.getModuleManager().reloadAddon(addon),
+                LangFile.Messages::getAddonReloaded);
+    }
+
+    /**
+     * Unloads an addon, the other addons keep running
+     * @param sender command sender
+     * @param addon addon name
+     */
+    @SubCommand("unload")
+    @Permission("gmanager.admin")
+    public void unload(CommandSender sender, String addon) {
+        if (GManager.getModuleManager().getAddonByName(addon).isEmpty()) {
+            GManager.sendMessage(sender, LangFile.Messages::getAddonNotFound, "addon", addon);
+            return;
+        }
+        sendResult(sender, addon, GManager.getModuleManager().unloadAddon(addon),
+                LangFile.Messages::getAddonUnloaded);
+    }
+
+    /**
+     * Loads an addon jar from the addons folder
+     * @param sender command sender
+     * @param jar jar name in the addons folder
+     */
+    @SubCommand("load")
+    @Permission("gmanager.admin")
+    public void load(CommandSender sender, String jar) {
+        File file = new File(new File(GManager.getInstance().getDataFolder(), "addons"),
+                jar.endsWith(".jar") ? jar : jar + ".jar");
+        if (!file.isFile()) {
+            GManager.sendMessage(sender, LangFile.Messages::getAddonNotFound, "addon", jar);
+            return;
+        }
+        sendResult(sender, file.getName(), GManager.getModuleManager().loadAddon(file),
+                LangFile.Messages::getAddonLoaded);
+    }
+
+    /**
+     * Shows where the addons spent their time, slowest first, and writes profile.json
+     * @param sender command sender
+     * @param addon addon name, null for every addon
+     */
+    @SubCommand("profile")
+    @Permission("gmanager.admin")
+    public void profile(CommandSender sender, @Optional String addon) {
+        ModuleProfiler profiler = GManager.getModuleManager().getProfiler();
+        List<ModuleProfiler.Profile> profiles = addon == null ? profiler.getProfiles()
+                : Stream.ofNullable(profiler.getProfile(addon)).toList();
+        if (profiles.isEmpty()) {
+            GManager.sendMessage(sender, LangFile.Messages::getAddonNotFound, "addon", addon == null ? "*" : addon);
+            return;
+        }
+        for (ModuleProfiler.Profile profile : profiles) {
+            StringBuilder line = new StringBuilder("&e").append(profile.getName()).append(" &f")
+                    .append(toMillis(profile.getTotalNanos())).append(" ms &7")
+                    .append(toKilobytes(profile.getTotalBytes())).append(" KB");
+            for (ModuleProfiler.Phase phase : ModuleProfiler.Phase.values()) {
+                if (profile.getCount(phase) > 0)
+                    line.append(" &8| &7").append(phase.name().toLowerCase(Locale.ENGLISH)).append(" &f")
+                            .append(toMillis(profile.getNanos(phase))).append(" ms &7")
+                            .append(toKilobytes(profile.getBytes(phase))).append(" KB");
+            }
+            ChatUtils.sendMessage(sender, line.toString());
+        }
+        File file = GManager.getModuleManager().saveProfile();
+        if (file != null)
+            GManager.sendMessage(sender, LangFile.Messages::getProfileSaved, "file", file.getName());
+    }
+
+    /**
+     * Shows the most expensive event handlers of the addons
+     * @param sender command sender
+     * @param addon addon name, null for every addon
+     */
+    @SubCommand("timings")
+    @Permission("gmanager.admin")
+    public void timings(CommandSender sender, @Optional String addon) {
+        ListenerTimings timings = GManager.getModuleManager().getListenerTimings();
+        List<ListenerTimings.EventStats> stats = addon == null ? timings.getStats() : timings.getStats(addon);
+        if (stats.isEmpty()) {
+            GManager.sendMessage(sender, LangFile.Messages::getAddonNotFound, "addon", addon == null ? "*" : addon);
+            return;
+        }
+        stats.stream().limit(TIMINGS_LINES).forEach(stat -> ChatUtils.sendMessage(sender,
+                "&e" + stat.getModule() + " &7" + stat.getEvent() + " &f" + toMillis(stat.getTotalNanos())
+                        + " ms &8| &7calls &f" + stat.getInvocations() + " &8| &7avg &f"
+                        + toMicros(stat.getAverageNanos()) + " µs &8| &7p99 &f" + toMicros(stat.getP99Nanos())
+                        + " µs &8| &7max &f" + toMicros(stat.getMaxNanos()) + " µs"));
+    }
+
+    /**
+     * Shows the libraries shared by the addons and the metaspace the sharing saves
+     * @param sender command sender
+     */
+    @SubCommand("libraries")
+    @Permission("gmanager.admin")
+    public void libraries(CommandSender sender) {
+        LibraryManager libraryManager = GManager.getModuleManager().getLibraryManager();
+        for (LibraryManager.Library library : libraryManager.getLibraries())
+            ChatUtils.sendMessage(sender, "&e" + library.getCoordinates() + " &7" + String.join(", ", library.getUsers())
+                    + " &8| &7classes &f" + library.getClasses() + " &8| &7metaspace &f"
+                    + toKilobytes(library.getMetaspaceBytes()) + " KB &8| &7saved &f"
+                    + toKilobytes(library.getSavedMetaspaceBytes()) + " KB");
+        ChatUtils.sendMessage(sender, "&7Saved &f" + toKilobytes(libraryManager.getSavedMetaspaceBytes())
+                + " KB &7of metaspace");
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1_000;
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ENGLISH, "%.2f", nanos / 1_000_000D);
+    }
+
+    private static long toKilobytes(long bytes) {
+        return bytes / 1024;
+    }
+
+    private static void sendResult(CommandSender sender, String addon, boolean success,
+                                   Function<LangFile.Messages, String> message) {
+        GManager.sendMessage(sender, success ? message : LangFile.Messages::getAddonFailed, "addon", addon);
+    }
+}
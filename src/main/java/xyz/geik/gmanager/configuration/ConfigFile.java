@@ -36,8 +36,46 @@ public class ConfigFile extends OkaeriConfig {
         @Comment("Language of plugin")
         private String lang = "tr";
 
+        @Comment({"Send every player the messages in the language of their client,",
+                "the language above is used for the console and the missing languages"})
+        private boolean playerLocale = true;
+
+        @Comment("Most languages kept loaded at once, the language above always stays")
+        private int langCacheSize = 8;
+
         @Comment("auto or vault, royaleconomy, playerpoints, gringotts, elementalgems")
         private String economy = "auto";
+
+        @Comment("Threads used by asynchronous addon requests")
+        private int requestThreads = 4;
+
+        @Comment({"Use virtual threads for asynchronous addon requests", "Requires Java 21, request-threads is ignored then"})
+        private boolean requestVirtualThreads = false;
+
+        @Comment({"Seconds the addons with concurrent-startup may take to enable",
+                "Addons still starting afterwards are marked as failed"})
+        private long concurrentStartupTimeout = 60;
+
+        @Comment({"Watch the addons folder and load, upgrade or unload changed addon jars", "without restarting the server"})
+        private boolean watchAddons = false;
+
+        @Comment("Milliseconds a changed jar has to stay untouched before it is loaded")
+        private long watchAddonsDelay = 1000;
+
+        @Comment({"Watch the config.yml and lang files of GManager and the addons and apply",
+                "their changes without a reload command"})
+        private boolean watchConfigs = true;
+
+        @Comment("Milliseconds a changed config has to stay untouched before it is parsed")
+        private long watchConfigsDelay = 500;
+
+        @Comment({"Main thread milliseconds the scheduled tasks of an addon may use per tick",
+                "Further tasks of the addon wait for the next tick, 0 disables the budget"})
+        private double addonTickBudget = 0;
+
+        @Comment({"Main thread milliseconds per tick spent on the chunked work submitted by addons",
+                "0 runs a single step of the work per tick"})
+        private double workQueueBudget = 5;
     }
 
     @Comment({"If you don't know about database settings", "please don't change here. Leave it SQLite"})
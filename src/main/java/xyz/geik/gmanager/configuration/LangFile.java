@@ -48,5 +48,11 @@ public class LangFile extends OkaeriConfig {
         private String playerNotOnline = "{prefix} &cTarget player is not online.";
         private String playerNotAvailable = "{prefix} &cPlayer is not available.";
         private String inCooldown = "{prefix} &cYou should wait {time}s for do it again.";
+        private String addonReloaded = "{prefix} &a{addon} reloaded successfully.";
+        private String addonUnloaded = "{prefix} &a{addon} unloaded successfully.";
+        private String addonLoaded = "{prefix} &a{addon} loaded successfully.";
+        private String addonNotFound = "{prefix} &c{addon} could not be found.";
+        private String addonFailed = "{prefix} &cAction on {addon} failed, check the console.";
+        private String profileSaved = "{prefix} &aProfile saved to {file}.";
     }
 }
\ No newline at end of file
@@ -48,5 +48,11 @@ public class tr extends LangFile {
         private String playerNotOnline = "{prefix} &cHedef oyuncu çevrim içi değil.";
         private String playerNotAvailable = "{prefix} &cOyuncu erişilemez.";
         private String inCooldown = "{prefix} &cBunu tekrar yapmak için {time} saniye beklemen gerek.";
+        private String addonReloaded = "{prefix} &a{addon} başarıyla yenilendi.";
+        private String addonUnloaded = "{prefix} &a{addon} başarıyla kaldırıldı.";
+        private String addonLoaded = "{prefix} &a{addon} başarıyla yüklendi.";
+        private String addonNotFound = "{prefix} &c{addon} bulunamadı.";
+        private String addonFailed = "{prefix} &c{addon} üzerindeki işlem başarısız oldu, konsolu kontrol et.";
+        private String profileSaved = "{prefix} &aProfil {file} dosyasına kaydedildi.";
     }
 }
\ No newline at end of file
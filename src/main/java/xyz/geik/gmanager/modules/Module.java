@@ -5,13 +5,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.bukkit.Bukkit;
@@ -20,14 +24,22 @@ import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.event.Listener;
-import xyz.geik.glib.shades.okaeri.configs.ConfigManager;
 import xyz.geik.glib.shades.okaeri.configs.OkaeriConfig;
-import xyz.geik.glib.shades.okaeri.configs.yaml.bukkit.YamlBukkitConfigurer;
 import xyz.geik.glib.shades.triumphteam.cmd.core.BaseCommand;
 import xyz.geik.gmanager.GManager;
+import xyz.geik.gmanager.api.config.ConfigHandle;
+import xyz.geik.gmanager.api.lang.LocaleManager;
+import xyz.geik.gmanager.api.lang.MessageTemplates;
 import xyz.geik.gmanager.api.modules.ModuleDescription;
+import xyz.geik.gmanager.api.modules.ModuleResources;
+import xyz.geik.gmanager.api.modules.requests.ModuleRequestCache;
+import xyz.geik.gmanager.api.modules.requests.ModuleRequestHandle;
 import xyz.geik.gmanager.api.modules.requests.ModuleRequestHandler;
-import xyz.geik.gmanager.configuration.ConfigFile;
+import xyz.geik.gmanager.api.modules.requests.ModuleRequestKey;
+import xyz.geik.gmanager.api.modules.requests.RequestCachePolicy;
+import xyz.geik.gmanager.api.modules.requests.TypedRequestHandler;
+import xyz.geik.gmanager.api.profiler.ListenerTimings;
+import xyz.geik.gmanager.api.scheduler.ModuleScheduler;
 
 /**
  * Add-on class for GManager. Extend this to create an add-on. The operation
@@ -43,7 +55,6 @@ public abstract class Module {
      */
     private final List<BaseCommand> commandList = new ArrayList<>();
 
-    @Setter
     @Getter
     private State state;
 
@@ -55,7 +66,44 @@ public abstract class Module {
 
     @Setter
     private File file;
-    private final Map<String, ModuleRequestHandler> requestHandlers = new HashMap<>();
+    private final Map<String, ModuleRequestHandler> requestHandlers = new ConcurrentHashMap<>();
+
+    /**
+     * Typed request handlers by their label, legacy handlers are bridged in here too
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, TypedRequest<?, ?>> typedRequestHandlers = new ConcurrentHashMap<>();
+
+    /**
+     * Response caches of the request handlers which declare a cache policy
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, ModuleRequestCache> requestCaches = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented when a request handler is registered, used by {@link ModuleRequestHandle}
+     */
+    private volatile int requestHandlersVersion;
+
+    /**
+     * Scheduler of the addon, created on first use
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile ModuleScheduler scheduler;
+
+    /**
+     * Resources of the addon jar, created on first use
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile ModuleResources resources;
+
+    /**
+     * Typed handler with the key it was registered with
+     * @param key request key
+     * @param handler request handler
+     */
+    private record TypedRequest<T, R>(ModuleRequestKey<T, R> key, TypedRequestHandler<T, R> handler) {
+    }
 
     protected Module() {
         state = State.DISABLED;
@@ -84,6 +132,8 @@ public abstract class Module {
 
     /**
      * Executes code when reloading the addon.
+     * Also called on the main thread after GManager swapped in a changed config or lang file,
+     * get the new one from {@link #getConfigHandle(String)}.
      */
     public void onReload() {}
 
@@ -144,6 +194,19 @@ public abstract class Module {
         return Bukkit.getServer();
     }
 
+    /**
+     * Sets the state of the addon and refreshes the state views of the registry.
+     *
+     * @param state new state
+     */
+    public void setState(State state) {
+        if (this.state == state)
+            return;
+        this.state = state;
+        if (GManager.getModuleManager() != null)
+            GManager.getModuleManager().getRegistry().refreshStates();
+    }
+
     public boolean isEnabled() {
         return state == State.ENABLED;
     }
@@ -158,11 +221,18 @@ public abstract class Module {
     }
 
     /**
-     * Registers command of addon
+     * Registers command of addon, on the main thread if called from another one
      *
      * @param command - base command class
      */
     public void registerCommand(BaseCommand command) {
+        if (!Bukkit.isPrimaryThread()) {
+            GManager.getModuleManager().getMainThread().call(() -> {
+                registerCommand(command);
+                return null;
+            });
+            return;
+        }
         GManager.getCommandManager().registerCommand(command);
         commandList.add(command);
     }
@@ -171,39 +241,68 @@ public abstract class Module {
      * Removes registered commands
      */
     public void unloadAllCommands() {
-        if (!commandList.isEmpty())
-            commandList.forEach(cmd -> GManager.getCommandManager().registerCommand(cmd));
+        commandList.forEach(cmd -> GManager.getCommandManager().unregisterCommand(cmd));
+        commandList.clear();
     }
 
     /**
-     * Reloads config file
+     * Reloads config file into the given instance. A config loaded through GManager is read
+     * off the main thread and applied to the instance on the main thread in one step.
      * @since release
      */
     public void reloadConfig(OkaeriConfig config) {
-        if (config != null)
-            config.load(true);
+        reloadInto(config);
     }
 
     /**
-     * Reloads lang file
+     * Reloads lang file into the given instance, see {@link #reloadConfig(OkaeriConfig)}
      * @since release
      */
     public void reloadLang(OkaeriConfig lang) {
-        if (lang != null)
-            lang.load(true);
+        reloadInto(lang);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void reloadInto(OkaeriConfig config) {
+        if (config == null)
+            return;
+        ConfigHandle<Object> handle = (ConfigHandle<Object>) GManager.getConfigService().getHandleOf(config);
+        if (handle == null) {
+            // Not parsed by GManager, there is nothing to parse it into
+            config.load(true);
+            return;
+        }
+        handle.reloadInto(config, GManager.getModuleManager().getRequestExecutor().getExecutor(),
+                        GManager.getModuleManager().getMainThread())
+                .whenComplete((reloaded, error) -> {
+                    if (error != null)
+                        GManager.getInstance().logWarning("Could not reload " + handle.getFile().getPath() + ": "
+                                + error.getMessage());
+                });
+    }
+
+    /**
+     * Gets the parsed file of the addon, read the latest config through it.
+     * GManager parses changed files again in the background into a new instance, swaps
+     * it into the handle and calls {@link #onReload()}, instances kept from before keep
+     * their old values.
+     *
+     * @param path path in the data folder, such as config.yml or lang/en.yml
+     * @return handle or null if the file wasn't loaded yet
+     */
+    public ConfigHandle<?> getConfigHandle(String path) {
+        return GManager.getConfigService().getHandle(new File(dataFolder, path));
     }
 
     /**
      * Saves the addon's config.yml file to the addon's data folder and loads it. If
-     * the file exists already, it will not be replaced.
+     * the file exists already, it will not be replaced. An unchanged file is parsed only once.
+     *
+     * @param config config of the addon, its class is used to parse the file
+     * @return loaded config
      */
     public OkaeriConfig saveDefaultConfig(OkaeriConfig config) {
-        return ConfigManager.create(ConfigFile.class, (it) -> {
-            it.withConfigurer(new YamlBukkitConfigurer());
-            it.withBindFile(new File(dataFolder, "config.yml"));
-            it.saveDefaults();
-            it.load(true);
-        });
+        return GManager.getConfigService().okaeri(config.getClass(), new File(dataFolder, "config.yml")).get();
     }
 
     /**
@@ -212,30 +311,31 @@ public abstract class Module {
      * then loads default lang file of addon.
      */
     public OkaeriConfig saveLang(Class defaultLang, String langPath) {
-        OkaeriConfig langFile;
-        String langName = GManager.getConfigFile().getSettings().getLang();
-        try {
-            Class langClass = Class.forName(langPath + langName);
-            Class<OkaeriConfig> languageClass = langClass;
-            langFile = ConfigManager.create(languageClass, (it) -> {
-                it.withConfigurer(new YamlBukkitConfigurer());
-                it.withBindFile(new File(getDataFolder() + "/lang", langName + ".yml"));
-                it.saveDefaults();
-                it.load(true);
-            });
-        }
-        catch (ClassNotFoundException exception) {
-            this.getPlugin().logError("Couldn't find the [" + langPath + "] path for " + langName + " lang.");
-            this.getPlugin().logError("Loading default..");
-            Class<OkaeriConfig> languageClass = defaultLang;
-            langFile = ConfigManager.create(languageClass, (it) -> {
-                it.withConfigurer(new YamlBukkitConfigurer());
-                it.withBindFile(new File(getDataFolder() + "/lang", langName + ".yml"));
-                it.saveDefaults();
-                it.load(true);
-            });
-        }
-        return langFile;
+        return getLang(defaultLang, langPath).get(GManager.getLocaleManager().getDefaultLocale());
+    }
+
+    /**
+     * Gets the lang of the addon in every language. The lang of a language is loaded when
+     * it is first asked for, such as by {@code getLang(en.class, "my.addon.lang.").get(player)}.
+     *
+     * @param defaultLang lang used for the languages without a lang class
+     * @param langPath package of the lang classes followed by a dot
+     * @return lang of the addon
+     */
+    public LocaleManager.Lang<OkaeriConfig> getLang(Class<? extends OkaeriConfig> defaultLang, String langPath) {
+        return GManager.getLocaleManager().register(langPath, OkaeriConfig.class, defaultLang,
+                new File(getDataFolder(), "lang"));
+    }
+
+    /**
+     * Gets the compiled messages of a lang section loaded by {@link #saveLang(Class, String)}.
+     * Messages are compiled once, rendering them only fills in the placeholders.
+     *
+     * @param section lang section, such as the messages of the lang file
+     * @return compiled messages
+     */
+    public MessageTemplates getMessages(OkaeriConfig section) {
+        return MessageTemplates.of(section);
     }
 
     /**
@@ -271,33 +371,25 @@ public abstract class Module {
         }
 
         jarResource = jarResource.replace('\\', '/');
-        try (JarFile jar = new JarFile(file)) {
-            JarEntry jarConfig = jar.getJarEntry(jarResource);
-            if (jarConfig != null) {
-                try (InputStream in = jar.getInputStream(jarConfig)) {
-                    if (in == null) {
-                        throw new IllegalArgumentException(
-                                "The embedded resource '" + jarResource + "' cannot be found in " + jar.getName());
-                    }
-                    // There are two options, use the path of the resource or not
-                    File outFile = new File(destinationFolder,
-                            jarResource.replaceAll("/", Matcher.quoteReplacement(File.separator)));
-
-                    if (noPath) {
-                        outFile = new File(destinationFolder, outFile.getName());
-                    }
-                    // Make any dirs that need to be made
-                    outFile.getParentFile().mkdirs();
-                    if (!outFile.exists() || replace) {
-                        java.nio.file.Files.copy(in, outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                    }
-                    return outFile;
-                }
-            } else {
+        try (InputStream in = getResources().open(jarResource)) {
+            if (in == null) {
                 // No file in the jar
                 throw new IllegalArgumentException(
-                        "The embedded resource '" + jarResource + "' cannot be found in " + jar.getName());
+                        "The embedded resource '" + jarResource + "' cannot be found in " + file.getName());
+            }
+            // There are two options, use the path of the resource or not
+            File outFile = new File(destinationFolder,
+                    jarResource.replaceAll("/", Matcher.quoteReplacement(File.separator)));
+
+            if (noPath) {
+                outFile = new File(destinationFolder, outFile.getName());
             }
+            // Make any dirs that need to be made
+            outFile.getParentFile().mkdirs();
+            if (!outFile.exists() || replace) {
+                java.nio.file.Files.copy(in, outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return outFile;
         } catch (IOException e) {
             GManager.getInstance().logError(
                     "Could not save from jar file. From " + jarResource + " to " + destinationFolder.getAbsolutePath());
@@ -317,13 +409,9 @@ public abstract class Module {
             throw new IllegalArgumentException("jarResource cannot be null or empty");
         }
         YamlConfiguration result = new YamlConfiguration();
-        jarResource = jarResource.replace('\\', '/');
-        try (JarFile jar = new JarFile(file)) {
-            JarEntry jarConfig = jar.getJarEntry(jarResource);
-            if (jarConfig != null) {
-                try (InputStreamReader in = new InputStreamReader(jar.getInputStream(jarConfig))) {
-                    result.load(in);
-                }
+        try (InputStream in = getResources().open(jarResource)) {
+            if (in != null) {
+                result.load(new InputStreamReader(in, StandardCharsets.UTF_8));
             }
         }
         return result;
@@ -332,27 +420,48 @@ public abstract class Module {
     /**
      * Get the resource from Jar file
      * @param jarResource - jar resource filename
-     * @return resource or null if there is a problem
+     * @return resource, the caller must close it, or null if there is a problem
      */
     public InputStream getResource(String jarResource) {
         if (jarResource == null || jarResource.equals("")) {
             throw new IllegalArgumentException("ResourcePath cannot be null or empty");
         }
-
-        jarResource = jarResource.replace('\\', '/');
-        try (JarFile jar = new JarFile(file)) {
-            JarEntry jarConfig = jar.getJarEntry(jarResource);
-            if (jarConfig != null) {
-                try (InputStream in = jar.getInputStream(jarConfig)) {
-                    return in;
-                }
-            }
+        try {
+            return getResources().open(jarResource);
         } catch (IOException e) {
             Bukkit.getLogger().severe("Could not open from jar file. " + jarResource);
         }
         return null;
     }
 
+    /**
+     * Gets the resources of the addon jar. The jar stays open until the addon is disabled.
+     *
+     * @return resources of the jar
+     */
+    public ModuleResources getResources() {
+        ModuleResources current = resources;
+        if (current == null) {
+            synchronized (this) {
+                current = resources;
+                if (current == null) {
+                    current = new ModuleResources(this);
+                    resources = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Closes the addon jar, called by GManager when the addon is disabled
+     */
+    public void closeResources() {
+        ModuleResources current = resources;
+        if (current != null)
+            current.close();
+    }
+
     /**
      * Get the Addon By Name
      * @return Optional Addon
@@ -388,6 +497,53 @@ public abstract class Module {
      */
     public void registerRequestHandler(ModuleRequestHandler handler) {
         requestHandlers.put(handler.getLabel(), handler);
+        RequestCachePolicy cachePolicy = handler.getCachePolicy();
+        if (cachePolicy != null)
+            requestCaches.put(handler.getLabel(), new ModuleRequestCache(cachePolicy));
+        else
+            requestCaches.remove(handler.getLabel());
+        // Bridge it, so it can be used through a ModuleRequestHandle as well
+        registerRequestHandler(ModuleRequestKey.legacy(handler.getLabel()), new TypedRequestHandler<>() {
+            @Override
+            public Object handle(Map<String, Object> metaData) {
+                return handleRequest(handler, metaData);
+            }
+
+            @Override
+            public List<Object> handleBatch(List<Map<String, Object>> metaData) {
+                return handler.handleBatch(metaData);
+            }
+        });
+    }
+
+    /**
+     * Register typed request handler to answer requests from plugins.
+     * @param key request key
+     * @param handler request handler
+     */
+    public <T, R> void registerRequestHandler(ModuleRequestKey<T, R> key, TypedRequestHandler<T, R> handler) {
+        typedRequestHandlers.put(key.label(), new TypedRequest<>(key, handler));
+        requestHandlersVersion++;
+    }
+
+    /**
+     * Gets the typed handler serving the given key.
+     * @param key request key
+     * @return request handler, null if there is no handler for the label
+     * @throws IllegalArgumentException if the handler of the label has incompatible types
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> TypedRequestHandler<T, R> getRequestHandler(ModuleRequestKey<T, R> key) {
+        activateIfLazy();
+        TypedRequest<?, ?> request = typedRequestHandlers.get(key.label());
+        if (request == null)
+            return null;
+        if (!request.key().accepts(key)) {
+            throw new IllegalArgumentException("Request '" + key.label() + "' of " + getDescription().getName()
+                    + " takes " + request.key().argumentType().getName() + " and returns "
+                    + request.key().resultType().getName());
+        }
+        return (TypedRequestHandler<T, R>) request.handler();
     }
 
     /**
@@ -397,15 +553,137 @@ public abstract class Module {
      * @return request response, null if no response.
      */
     public Object request(String label, Map<String, Object> metaData) {
+        activateIfLazy();
         label = label.toLowerCase(Locale.ENGLISH);
         ModuleRequestHandler handler = requestHandlers.get(label);
         if(handler != null) {
-            return handler.handle(metaData);
+            return handleRequest(handler, metaData);
         } else {
             return null;
         }
     }
 
+    /**
+     * Enables the addon if it is lazy and was not used yet, so its request handlers get registered.
+     */
+    private void activateIfLazy() {
+        if (state == State.LOADED && description != null && description.isLazy())
+            GManager.getModuleManager().activateAddon(this);
+    }
+
+    /**
+     * Handles the request through the response cache of the handler if it has one.
+     * @param handler request handler
+     * @param metaData meta data
+     * @return request response
+     */
+    private Object handleRequest(ModuleRequestHandler handler, Map<String, Object> metaData) {
+        ModuleRequestCache cache = requestCaches.get(handler.getLabel());
+        return cache == null ? handler.handle(metaData) : cache.get(metaData, () -> handler.handle(metaData));
+    }
+
+    /**
+     * Invalidates every cached response of the label.
+     * @param label label
+     */
+    public void invalidateRequestCache(String label) {
+        ModuleRequestCache cache = requestCaches.get(label.toLowerCase(Locale.ENGLISH));
+        if (cache != null)
+            cache.invalidateAll();
+    }
+
+    /**
+     * Invalidates the cached response of the label for the given meta data.
+     * @param label label
+     * @param metaData meta data
+     */
+    public void invalidateRequestCache(String label, Map<String, Object> metaData) {
+        ModuleRequestCache cache = requestCaches.get(label.toLowerCase(Locale.ENGLISH));
+        if (cache != null)
+            cache.invalidate(metaData);
+    }
+
+    /**
+     * Invalidates every cached response of the addon.
+     */
+    public void invalidateRequestCaches() {
+        requestCaches.values().forEach(ModuleRequestCache::invalidateAll);
+    }
+
+    /**
+     * Gets hit and miss counters of the response caches.
+     * @return counters by request label
+     */
+    public Map<String, ModuleRequestCache.Stats> getRequestCacheStats() {
+        Map<String, ModuleRequestCache.Stats> stats = new TreeMap<>();
+        requestCaches.forEach((label, cache) -> stats.put(label, cache.getStats()));
+        return stats;
+    }
+
+    /**
+     * Gets the cost of the event handlers registered by {@link #registerListener(Listener)}.
+     * @return timings by event type, most expensive first
+     */
+    public List<ListenerTimings.EventStats> getEventTimings() {
+        return GManager.getModuleManager().getListenerTimings().getStats(getDescription().getName());
+    }
+
+    /**
+     * Send many requests to addon at once.
+     * Batches are always handled by the handler, the response cache is not used.
+     * @param label label
+     * @param metaData meta data of every request
+     * @return request responses in the same order, empty if there is no handler.
+     */
+    public List<Object> requestBatch(String label, List<Map<String, Object>> metaData) {
+        activateIfLazy();
+        ModuleRequestHandler handler = requestHandlers.get(label.toLowerCase(Locale.ENGLISH));
+        return handler != null ? handler.handleBatch(metaData) : Collections.emptyList();
+    }
+
+    /**
+     * Send request to addon on the request executor of GManager.
+     * @param label label
+     * @param metaData meta data
+     * @return future of the response, completed with null if no response.
+     */
+    public CompletableFuture<Object> requestAsync(String label, Map<String, Object> metaData) {
+        Map<String, Object> copy = copyMetaData(metaData);
+        return GManager.getModuleManager().getRequestExecutor().supply(() -> request(label, copy));
+    }
+
+    /**
+     * Send request to addon on the given executor.
+     * @param label label
+     * @param metaData meta data
+     * @param executor executor running the handler
+     * @return future of the response, completed with null if no response.
+     */
+    public CompletableFuture<Object> requestAsync(String label, Map<String, Object> metaData, Executor executor) {
+        Map<String, Object> copy = copyMetaData(metaData);
+        return CompletableFuture.supplyAsync(() -> request(label, copy), executor);
+    }
+
+    /**
+     * Send many requests to addon at once on the request executor of GManager.
+     * @param label label
+     * @param metaData meta data of every request
+     * @return future of the responses in the same order
+     */
+    public CompletableFuture<List<Object>> requestBatchAsync(String label, List<Map<String, Object>> metaData) {
+        List<Map<String, Object>> copy = new ArrayList<>(metaData.size());
+        metaData.forEach(entry -> copy.add(copyMetaData(entry)));
+        return GManager.getModuleManager().getRequestExecutor().supply(() -> requestBatch(label, copy));
+    }
+
+    /**
+     * Copies the meta data of an async request, the caller may change its map while the handler runs.
+     * Null values are kept.
+     */
+    private static Map<String, Object> copyMetaData(Map<String, Object> metaData) {
+        return metaData == null ? null : new HashMap<>(metaData);
+    }
+
     /**
      * Load YAML config file
      *
@@ -417,8 +695,7 @@ public abstract class Module {
         YamlConfiguration yamlConfig = null;
         if (yamlFile.exists()) {
             try {
-                yamlConfig = new YamlConfiguration();
-                yamlConfig.load(yamlFile);
+                yamlConfig = GManager.getConfigService().yaml(yamlFile).get();
             } catch (Exception e) {
                 Bukkit.getLogger().severe(() -> "Could not load config.yml: " + e.getMessage());
             }
@@ -426,6 +703,59 @@ public abstract class Module {
         return yamlConfig;
     }
 
+    /**
+     * Runs the task on the server main thread.
+     * Addons declaring {@code concurrent-startup} must use it in {@link #onEnable()}
+     * for anything touching Bukkit, {@link #registerListener(Listener)} and
+     * {@link #registerCommand(BaseCommand)} already do.
+     *
+     * @param task task
+     */
+    public void runSync(Runnable task) {
+        GManager.getModuleManager().getMainThread().execute(task);
+    }
+
+    /**
+     * Calls the task on the server main thread and waits for its result.
+     * Addons declaring {@code concurrent-startup} must use it in {@link #onEnable()}
+     * for anything touching Bukkit.
+     *
+     * @param task task
+     * @return result of the task
+     */
+    public <T> T callSync(Callable<T> task) {
+        return GManager.getModuleManager().getMainThread().call(task);
+    }
+
+    /**
+     * Gets the scheduler of the addon. Use it instead of the Bukkit scheduler,
+     * its tasks are accounted to the addon and cancelled when it is disabled or reloaded.
+     *
+     * @return scheduler
+     */
+    public ModuleScheduler getScheduler() {
+        ModuleScheduler current = scheduler;
+        if (current == null) {
+            synchronized (this) {
+                current = scheduler;
+                if (current == null) {
+                    current = GManager.getModuleManager().createScheduler(this);
+                    scheduler = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Cancels every task of the addon scheduler
+     */
+    public void cancelTasks() {
+        ModuleScheduler current = scheduler;
+        if (current != null)
+            current.cancelAll();
+    }
+
     /**
      * Called when all addons have been loaded by GManager
      */
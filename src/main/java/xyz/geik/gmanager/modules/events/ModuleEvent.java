@@ -4,6 +4,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.bukkit.Bukkit;
+import org.bukkit.event.HandlerList;
+import javax.annotation.Nullable;
 import xyz.geik.gmanager.modules.Module;
 
 public class ModuleEvent {
@@ -15,6 +17,22 @@ public class ModuleEvent {
         UNKNOWN
     }
 
+    /**
+     * Checks if anything listens to the event of the reason.
+     * Every event type has its own handler list, so this doesn't count listeners of other reasons.
+     * @param reason - event reason
+     * @return true if the event has at least one listener
+     */
+    public static boolean hasListeners(Reason reason) {
+        HandlerList handlerList = switch (reason) {
+            case ENABLE -> ModuleEnableEvent.getHandlerList();
+            case DISABLE -> ModuleDisableEvent.getHandlerList();
+            case LOAD -> ModuleLoadEvent.getHandlerList();
+            default -> ModuleGeneralEvent.getHandlerList();
+        };
+        return handlerList.getRegisteredListeners().length > 0;
+    }
+
     /**
      * @return Addon event builder
      */
@@ -26,7 +44,7 @@ public class ModuleEvent {
         // Here field are NOT final. They are just used for the building.
         private Module module;
         private Reason reason = Reason.UNKNOWN;
-        private Map<String, Object> keyValues = new HashMap<>();
+        private Map<String, Object> keyValues;
 
         /**
          * Add a map of key-value pairs to the event. Use this to transfer data from the addon to the external world.
@@ -49,6 +67,10 @@ public class ModuleEvent {
         }
 
         private ModuleBaseEvent getEvent() {
+            // Only allocated when the event is actually fired
+            if (keyValues == null) {
+                keyValues = new HashMap<>();
+            }
             return switch (reason) {
                 case ENABLE -> new ModuleEnableEvent(module, keyValues);
                 case DISABLE -> new ModuleDisableEvent(module, keyValues);
@@ -67,5 +89,14 @@ public class ModuleEvent {
             Bukkit.getPluginManager().callEvent(newEvent);
             return newEvent;
         }
+
+        /**
+         * Build and fire event only if something listens to it
+         * @return event or null if the event has no listeners
+         */
+        @Nullable
+        public ModuleBaseEvent fireIfListened() {
+            return hasListeners(reason) ? build() : null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package xyz.geik.gmanager.modules.events;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import org.bukkit.event.HandlerList;
+import xyz.geik.gmanager.modules.Module;
+
+import javax.annotation.Nullable;
+
+/**
+ * Call this event to invalidate cached request responses of an addon.
+ * Without a label every cache of the addon is invalidated, without meta data
+ * every response of the label is invalidated.
+ * The event is synchronous, from other threads use {@link Module#invalidateRequestCache(String)}.
+ */
+@Getter
+public class ModuleRequestInvalidateEvent extends ModuleBaseEvent {
+
+    private static final HandlerList handlers = new HandlerList();
+
+    @Nullable
+    private final String label;
+    @Nullable
+    private final Map<String, Object> metaData;
+
+    @Override
+    public HandlerList getHandlers() {
+        return getHandlerList();
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+
+    public ModuleRequestInvalidateEvent(Module module, @Nullable String label, @Nullable Map<String, Object> metaData) {
+        // Final variables have to be declared in the constructor
+        super(module, new HashMap<>());
+        this.label = label;
+        this.metaData = metaData;
+    }
+}